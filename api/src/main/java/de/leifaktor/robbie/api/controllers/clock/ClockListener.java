@@ -35,6 +35,23 @@ public interface ClockListener {
      */
     void ticksPassed();
 
+    /**
+     * Gets called by a clock running in fixed-timestep mode after one or more
+     * ticks passed since the previous call.
+     *
+     * <p>The default implementation calls {@link #ticksPassed()} once per
+     * elapsed tick, so simulations advance by the same number of steps no
+     * matter how late the clock was. Listeners able to advance several steps
+     * at once may override this.
+     *
+     * @param elapsedTicks the number of ticks passed, always positive
+     */
+    default void ticksPassed(int elapsedTicks) {
+        for (int i = 0; i < elapsedTicks; i++) {
+            ticksPassed();
+        }
+    }
+
 }
 
 /* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,45 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.api.controllers.clock;
+
+/**
+ * Marks a ClockListener as cheap enough to be called directly on the thread
+ * delivering the tick.
+ *
+ * <p>Handing a listener over to another thread costs a task allocation, a
+ * queue handoff and a wakeup, which dominates for listeners taking only
+ * microseconds. Implementations that dispatch ticks to several threads may
+ * therefore call inline listeners one after another on the tick thread
+ * instead.
+ *
+ * <p>Inline listeners must not block and should return quickly, since they
+ * delay the tick thread and every inline listener after them.
+ *
+ * <p>The marker is a hint only. Implementations may ignore it and run
+ * inline listeners like any other.
+ */
+public interface InlineClockListener extends ClockListener {
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,80 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.api.controllers.collision;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A CollisionHandler which handles all collisions of a detection at once.
+ *
+ * <p>CollisionDetectors supporting this interface collect all collisions
+ * a BatchCollisionHandler is responsible for during one detection and
+ * pass them in a single call to {@link #collisionsHappened(List, List)},
+ * after all collisions have been detected. This allows implementations
+ * to amortize their work, e.g. applying damage to many creatures under
+ * one lock or sending one event.
+ *
+ * <p>CollisionDetectors not supporting this interface simply call
+ * {@link #collisionHappened(Collideable, Collideable)}, which passes the
+ * single collision as a batch of one.
+ *
+ * @param <V> the type of the Collideable subclass this handler
+ *           can handle
+ * @param <W> the type of the Collideable subclass this handler
+ *           can handle
+ * @see CollisionHandler
+ */
+public interface BatchCollisionHandler<V extends Collideable, W extends Collideable>
+        extends CollisionHandler<V, W> {
+
+    /**
+     * Called with all collisions of instances of V and W of a detection.
+     *
+     * <p>The i-th element of firsts collided with the i-th element of
+     * seconds. Both lists have the same size, which is never zero.
+     * The lists may be reused by the caller after this method returned,
+     * so implementations must not keep references to them.
+     *
+     * @param firsts the first Collideables of the collisions
+     * @param seconds the second Collideables of the collisions
+     * @throws NullPointerException if firsts or seconds is null
+     */
+    void collisionsHappened(List<V> firsts, List<W> seconds);
+
+    /**
+     * Passes the collision of c1 and c2 as a batch of one to
+     * {@link #collisionsHappened(List, List)}.
+     *
+     * @param c1 one of the Collideables
+     * @param c2 the other of the Collideables
+     * @throws NullPointerException if c1 or c2 is null
+     */
+    @Override
+    default void collisionHappened(V c1, W c2) {
+        collisionsHappened(Collections.singletonList(c1), Collections.singletonList(c2));
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,108 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.api.controllers.collision;
+
+/**
+ * A CollisionHandler which is told when contacts begin, persist and end.
+ *
+ * <p>CollisionDetectors supporting this interface remember the pairs in
+ * contact across detections. They call {@link #contactBegan(Collideable,
+ * Collideable)} when a pair is detected which was not in contact in the
+ * previous detection, {@link #contactPersisted(Collideable, Collideable)}
+ * when it already was, and {@link #contactEnded(Collideable, Collideable)}
+ * once a pair in contact is no longer detected. A pair is identified by
+ * the identities of its Collideables regardless of their order, so every
+ * event is reported at most once per pair and detection, even if the
+ * detector finds both orientations. A Collideable is never in contact
+ * with itself.
+ *
+ * <p>Handlers only interested in the first contact need to implement
+ * contactBegan only, since the other events are ignored by default.
+ *
+ * <p>CollisionDetectors not supporting this interface simply call
+ * {@link #collisionHappened(Collideable, Collideable)} on every
+ * detection, which is passed to contactPersisted.
+ *
+ * @param <V> the type of the Collideable subclass this handler
+ *           can handle
+ * @param <W> the type of the Collideable subclass this handler
+ *           can handle
+ * @see CollisionHandler
+ */
+public interface ContactHandler<V extends Collideable, W extends Collideable>
+        extends CollisionHandler<V, W> {
+
+    /**
+     * Called when two instances of V and W, which were not in contact
+     * in the previous detection, collide.
+     *
+     * @param c1 one of the Collideables
+     * @param c2 the other of the Collideables
+     * @throws NullPointerException if c1 or c2 is null
+     */
+    void contactBegan(V c1, W c2);
+
+    /**
+     * Called when two instances of V and W, which were already in contact
+     * in the previous detection, still collide.
+     *
+     * <p>The default implementation does nothing.
+     *
+     * @param c1 one of the Collideables
+     * @param c2 the other of the Collideables
+     * @throws NullPointerException if c1 or c2 is null
+     */
+    default void contactPersisted(V c1, W c2) {
+        //Nothing to do by default
+    }
+
+    /**
+     * Called after a detection when two instances of V and W, which were
+     * in contact in the previous detection, no longer collide.
+     *
+     * <p>The default implementation does nothing.
+     *
+     * @param c1 one of the Collideables
+     * @param c2 the other of the Collideables
+     * @throws NullPointerException if c1 or c2 is null
+     */
+    default void contactEnded(V c1, W c2) {
+        //Nothing to do by default
+    }
+
+    /**
+     * Passes the collision of c1 and c2 to
+     * {@link #contactPersisted(Collideable, Collideable)}.
+     *
+     * @param c1 one of the Collideables
+     * @param c2 the other of the Collideables
+     * @throws NullPointerException if c1 or c2 is null
+     */
+    @Override
+    default void collisionHappened(V c1, W c2) {
+        contactPersisted(c1, c2);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -48,15 +48,45 @@ public class DoublePosition {
     }
 
     /**
-     * Returns the square of the euclidean distance between this and other.
+     * Returns the xPos coordinate.
+     *
+     * @return the xPos coordinate
+     */
+    public double getX() {
+        return xPos;
+    }
+
+    /**
+     * Returns the yPos coordinate.
+     *
+     * @return the yPos coordinate
+     */
+    public double getY() {
+        return yPos;
+    }
+
+    /**
+     * Returns the euclidean distance between this and other.
      *
-     * <p>The square is returned because of performance reasons.
+     * <p>Comparing distances is cheaper with {@link #squaredDistanceTo(DoublePosition)},
+     * since it does not compute a square root.
      *
      * @param other the DoublePosition to calculate the distance to
-     * @return {@code (this.xPos - other.xPos)^2 + (this.yPos - other.yPos)^2}
+     * @return the square root of {@link #squaredDistanceTo(DoublePosition)}
      * @throws NullPointerException if other is null
      */
     public double distanceTo(DoublePosition other) {
+        return Math.sqrt(squaredDistanceTo(other));
+    }
+
+    /**
+     * Returns the square of the euclidean distance between this and other.
+     *
+     * @param other the DoublePosition to calculate the distance to
+     * @return {@code (this.xPos - other.xPos)^2 + (this.yPos - other.yPos)^2}
+     * @throws NullPointerException if other is null
+     */
+    public double squaredDistanceTo(DoublePosition other) {
         double xDiff = xPos - other.xPos;
         double yDiff = yPos - other.yPos;
         return xDiff * xDiff + yDiff * yDiff;
@@ -0,0 +1,195 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.api.controllers.collision;
+
+import java.util.Arrays;
+
+/**
+ * A store of positions in parallel primitive arrays.
+ *
+ * <p>Every position has an id, which is an index into the arrays. Ids are
+ * handed out by {@link #allocate(double, double)} and recycled after
+ * {@link #free(int)}, so the arrays stay dense. Moving a position with
+ * {@link #setPosition(int, double, double)} does not allocate anything.
+ *
+ * <p>Collideables opt into a PositionStore by implementing
+ * {@link StoredCollideable}, which allows CollisionDetectors to read
+ * their coordinates without creating DoublePositions.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class PositionStore {
+
+    /**
+     * The initial capacity of the arrays.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The x coordinates by id.
+     */
+    private double[] xs = new double[INITIAL_CAPACITY];
+
+    /**
+     * The y coordinates by id.
+     */
+    private double[] ys = new double[INITIAL_CAPACITY];
+
+    /**
+     * Whether an id is allocated.
+     */
+    private boolean[] allocated = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * The freed ids to hand out again.
+     */
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of freed ids.
+     */
+    private int freeCount;
+
+    /**
+     * The smallest id, which was never allocated.
+     */
+    private int nextId;
+
+    /**
+     * Creates a new empty PositionStore.
+     */
+    public PositionStore() {
+        super();
+    }
+
+    /**
+     * Stores a new position.
+     *
+     * @param xPos the x coordinate
+     * @param yPos the y coordinate
+     * @return the id of the position
+     */
+    public int allocate(double xPos, double yPos) {
+        int id;
+        if (freeCount > 0) {
+            freeCount--;
+            id = freeIds[freeCount];
+        } else {
+            if (nextId == xs.length) {
+                int capacity = xs.length * 2;
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                allocated = Arrays.copyOf(allocated, capacity);
+            }
+            id = nextId;
+            nextId++;
+        }
+        allocated[id] = true;
+        xs[id] = xPos;
+        ys[id] = yPos;
+        return id;
+    }
+
+    /**
+     * Removes the position with the given id.
+     *
+     * <p>The id may be returned by a later call to allocate.
+     *
+     * @param id the id of the position
+     * @throws IllegalArgumentException if id is not allocated
+     */
+    public void free(int id) {
+        checkAllocated(id);
+        allocated[id] = false;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeCount] = id;
+        freeCount++;
+    }
+
+    /**
+     * Moves the position with the given id.
+     *
+     * @param id the id of the position
+     * @param xPos the new x coordinate
+     * @param yPos the new y coordinate
+     * @throws IllegalArgumentException if id is not allocated
+     */
+    public void setPosition(int id, double xPos, double yPos) {
+        checkAllocated(id);
+        xs[id] = xPos;
+        ys[id] = yPos;
+    }
+
+    /**
+     * Returns the x coordinate of the position with the given id.
+     *
+     * @param id the id of the position
+     * @return its x coordinate
+     * @throws IllegalArgumentException if id is not allocated
+     */
+    public double getX(int id) {
+        checkAllocated(id);
+        return xs[id];
+    }
+
+    /**
+     * Returns the y coordinate of the position with the given id.
+     *
+     * @param id the id of the position
+     * @return its y coordinate
+     * @throws IllegalArgumentException if id is not allocated
+     */
+    public double getY(int id) {
+        checkAllocated(id);
+        return ys[id];
+    }
+
+    /**
+     * Returns the position with the given id as a new DoublePosition.
+     *
+     * @param id the id of the position
+     * @return a DoublePosition with the coordinates of the position
+     * @throws IllegalArgumentException if id is not allocated
+     */
+    public DoublePosition getPosition(int id) {
+        checkAllocated(id);
+        return new DoublePosition(xs[id], ys[id]);
+    }
+
+    /**
+     * Checks that id is allocated.
+     *
+     * @param id the id to check
+     * @throws IllegalArgumentException if id is not allocated
+     */
+    private void checkAllocated(int id) {
+        if (id < 0 || id >= nextId || !allocated[id]) {
+            throw new IllegalArgumentException("The id " + id + " is not allocated.");
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
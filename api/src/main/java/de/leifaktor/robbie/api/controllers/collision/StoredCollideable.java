@@ -0,0 +1,62 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.api.controllers.collision;
+
+/**
+ * A Collideable keeping its position in a {@link PositionStore}.
+ *
+ * <p>CollisionDetectors may read the coordinates of a StoredCollideable
+ * directly from its PositionStore instead of calling
+ * {@link #getPosition()}. The id must therefore stay allocated as long as
+ * this takes part in collision detection.
+ */
+public interface StoredCollideable extends Collideable {
+
+    /**
+     * Returns the PositionStore holding the position of this.
+     *
+     * @return the PositionStore; it is never null
+     */
+    PositionStore getPositionStore();
+
+    /**
+     * Returns the id of the position of this in its PositionStore.
+     *
+     * @return the id of the position
+     */
+    int getPositionId();
+
+    /**
+     * Returns the current position read from the PositionStore.
+     *
+     * @return a DoublePosition object representing the current position
+     *         of this in a room; it is never null
+     */
+    @Override
+    default DoublePosition getPosition() {
+        return getPositionStore().getPosition(getPositionId());
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
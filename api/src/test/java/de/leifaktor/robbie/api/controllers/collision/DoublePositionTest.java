@@ -63,23 +63,48 @@ public class DoublePositionTest {
     }
 
     @Test(dataProvider = "pointsToZero")
-    public void distanceTo_ZeroPosition(double x, double y, double expected) {
+    public void squaredDistanceTo_ZeroPosition(double x, double y, double expected) {
         DoublePosition zeroPosition = new DoublePosition(0,0);
         DoublePosition other = new DoublePosition(x,y);
 
-        double distance = zeroPosition.distanceTo(other);
+        double distance = zeroPosition.squaredDistanceTo(other);
 
         Assert.assertEquals(distance, expected, ACCURACY);
     }
 
     @Test(dataProvider = "differentPoints")
-    public void distanceTo(double x1, double y1, double x2, double y2, double expected) {
+    public void squaredDistanceTo(double x1, double y1, double x2, double y2, double expected) {
         DoublePosition firstPosition = new DoublePosition(x1, y1);
         DoublePosition secondPosition = new DoublePosition(x2, y2);
 
-        double distance = firstPosition.distanceTo(secondPosition);
+        double distance = firstPosition.squaredDistanceTo(secondPosition);
 
         Assert.assertEquals(distance, expected, ACCURACY);
     }
 
+    @Test(dataProvider = "pointsToZero")
+    public void distanceTo_ZeroPosition(double x, double y, double expectedSquared) {
+        DoublePosition zeroPosition = new DoublePosition(0,0);
+        DoublePosition other = new DoublePosition(x,y);
+
+        double distance = zeroPosition.distanceTo(other);
+
+        Assert.assertEquals(distance, Math.sqrt(expectedSquared), ACCURACY);
+    }
+
+    @Test(dataProvider = "differentPoints")
+    public void distanceTo(double x1, double y1, double x2, double y2, double expectedSquared) {
+        DoublePosition firstPosition = new DoublePosition(x1, y1);
+        DoublePosition secondPosition = new DoublePosition(x2, y2);
+
+        double distance = firstPosition.distanceTo(secondPosition);
+
+        Assert.assertEquals(distance, Math.sqrt(expectedSquared), ACCURACY);
+    }
+
+    @Test
+    public void distanceTo_pythagoreanTriple() {
+        Assert.assertEquals(new DoublePosition(1, 2).distanceTo(new DoublePosition(4, 6)), 5.0);
+    }
+
 }
@@ -0,0 +1,111 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.api.controllers.collision;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the PositionStore class.
+ */
+public class PositionStoreTest {
+
+    /**
+     * Empty constructor.
+     */
+    public PositionStoreTest() {
+        super();
+    }
+
+    @Test
+    public void allocate_storesCoordinates() {
+        PositionStore store = new PositionStore();
+
+        int id = store.allocate(1.5, -2);
+
+        Assert.assertEquals(store.getX(id), 1.5);
+        Assert.assertEquals(store.getY(id), -2.0);
+    }
+
+    @Test
+    public void allocate_growsBeyondInitialCapacity() {
+        PositionStore store = new PositionStore();
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(store.allocate(i, -i), i);
+        }
+
+        Assert.assertEquals(store.getX(999), 999.0);
+        Assert.assertEquals(store.getY(0), 0.0);
+    }
+
+    @Test
+    public void allocate_reusesFreedIds() {
+        PositionStore store = new PositionStore();
+        store.allocate(0, 0);
+        int freed = store.allocate(1, 1);
+        store.free(freed);
+
+        int id = store.allocate(2, 3);
+
+        Assert.assertEquals(id, freed);
+        Assert.assertEquals(store.getX(id), 2.0);
+        Assert.assertEquals(store.getY(id), 3.0);
+    }
+
+    @Test
+    public void setPosition_movesPosition() {
+        PositionStore store = new PositionStore();
+        int id = store.allocate(0, 0);
+
+        store.setPosition(id, 4, 5);
+
+        Assert.assertEquals(store.getPosition(id).distanceTo(new DoublePosition(4, 5)), 0.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void free_twice() {
+        PositionStore store = new PositionStore();
+        int id = store.allocate(0, 0);
+        store.free(id);
+
+        store.free(id);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void getX_freedId() {
+        PositionStore store = new PositionStore();
+        int id = store.allocate(0, 0);
+        store.free(id);
+
+        store.getX(id);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void setPosition_neverAllocated() {
+        new PositionStore().setPosition(0, 1, 1);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
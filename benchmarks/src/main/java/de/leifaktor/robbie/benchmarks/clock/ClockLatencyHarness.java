@@ -0,0 +1,271 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.Clock;
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+import de.leifaktor.robbie.controllers.clock.ClockImpl;
+import de.leifaktor.robbie.controllers.clock.ClockListenerThreadFactory;
+import de.leifaktor.robbie.controllers.clock.TickEventHandler;
+import de.leifaktor.robbie.controllers.clock.TickEventHandlerImpl;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Measures the latency a running ClockImpl with a TickEventHandlerImpl
+ * adds between the scheduled time of a tick and its ClockListeners.
+ *
+ * <p>For every combination of tick duration and number of ClockListeners
+ * the clock runs for a while. The first tick defines the schedule, the
+ * n-th tick is due n tick durations later. Two distributions are recorded
+ * in HdrHistograms: the jitter of the tick itself, that is how late the
+ * TickEventHandler starts, and the latency of every ClockListener, that is
+ * how late it starts. Every ClockListener gets every tick exactly once, so
+ * it counts the ticks it got and measures against the due time of its own
+ * tick, not of the one the clock is at.
+ *
+ * <p>The results are printed as a table of percentiles in microseconds.
+ */
+public final class ClockLatencyHarness {
+
+    /**
+     * The tick durations to measure in milliseconds.
+     */
+    private static final long[] TICK_DURATIONS = {1, 5, 16};
+
+    /**
+     * The numbers of ClockListeners to measure.
+     */
+    private static final int[] LISTENER_COUNTS = {1, 10, 100, 1000};
+
+    /**
+     * The number of seconds every combination runs, if no argument is given.
+     */
+    private static final long DEFAULT_SECONDS = 5;
+
+    /**
+     * The number of seconds every combination runs before recording.
+     */
+    private static final long WARMUP_SECONDS = 1;
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    /**
+     * The recorded jitter of the ticks in nanoseconds.
+     */
+    private final Histogram tickJitter = new ConcurrentHistogram(3);
+
+    /**
+     * The recorded latency of the ClockListeners in nanoseconds.
+     */
+    private final Histogram listenerLatency = new ConcurrentHistogram(3);
+
+    /**
+     * The duration of a tick in nanoseconds.
+     */
+    private final long tickNanos;
+
+    /**
+     * The time the first tick happened.
+     */
+    private volatile long firstTick;
+
+    /**
+     * The number of ticks so far.
+     */
+    private long ticks;
+
+    /**
+     * Whether the measured values are recorded.
+     */
+    private volatile boolean recording;
+
+    /**
+     * A ClockListener recording how late it starts.
+     */
+    private final class LatencyListener implements ClockListener {
+
+        /**
+         * The number of ticks this got so far, only accessed by the thread
+         * currently running this.
+         */
+        private long received;
+
+        /**
+         * Creates a new LatencyListener.
+         */
+        LatencyListener() {
+            super();
+        }
+
+        @Override
+        public void ticksPassed() {
+            ticksPassed(1);
+        }
+
+        /**
+         * Records the latency against the oldest of the elapsed ticks.
+         *
+         * @param elapsedTicks the number of ticks passed
+         */
+        @Override
+        public void ticksPassed(int elapsedTicks) {
+            long now = System.nanoTime();
+            long due = firstTick + received * tickNanos;
+            received += elapsedTicks;
+            if (recording) {
+                listenerLatency.recordValue(Math.max(0, now - due));
+            }
+        }
+
+    }
+
+    /**
+     * Creates a new ClockLatencyHarness for one tick duration.
+     *
+     * @param tickMillis the duration of a tick in milliseconds
+     */
+    private ClockLatencyHarness(long tickMillis) {
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    }
+
+    /**
+     * Runs all combinations and prints the results.
+     *
+     * @param args optionally the number of seconds every combination runs
+     * @throws InterruptedException if interrupted while measuring
+     * @throws TimeoutException if the ClockListeners did not finish in time
+     */
+    public static void main(String[] args) throws InterruptedException, TimeoutException {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_SECONDS;
+        PrintStream out = System.out;
+        out.printf("%8s %9s | %-40s | %-40s%n", "tick ms", "listeners",
+                "tick jitter us: p50 p99 p99.9 max",
+                "listener latency us: p50 p99 p99.9 max");
+        for (long tickMillis : TICK_DURATIONS) {
+            for (int listenerCount : LISTENER_COUNTS) {
+                ClockLatencyHarness harness = new ClockLatencyHarness(tickMillis);
+                harness.measure(listenerCount, seconds);
+                out.printf("%8d %9d | %-40s | %-40s%n", tickMillis, listenerCount,
+                        format(harness.tickJitter), format(harness.listenerLatency));
+            }
+        }
+    }
+
+    /**
+     * Formats the percentiles of a histogram in microseconds.
+     *
+     * @param histogram the histogram in nanoseconds
+     * @return the percentiles p50, p99, p99.9 and the maximum
+     */
+    private static String format(Histogram histogram) {
+        return String.format("%.1f %.1f %.1f %.1f",
+                histogram.getValueAtPercentile(50) / NANOS_PER_MICRO,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MICRO,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MICRO,
+                histogram.getMaxValue() / NANOS_PER_MICRO);
+    }
+
+    /**
+     * Runs a clock with listenerCount ClockListeners and records the latencies.
+     *
+     * @param listenerCount the number of ClockListeners
+     * @param seconds the number of seconds to record
+     * @throws InterruptedException if interrupted while measuring
+     * @throws TimeoutException if the ClockListeners did not finish in time
+     */
+    private void measure(int listenerCount, long seconds)
+            throws InterruptedException, TimeoutException {
+        ExecutorService listenerExecutor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ClockListenerThreadFactory((thread, exception) -> exception.printStackTrace()));
+        List<ClockListener> listeners = new ArrayList<>(listenerCount);
+        for (int i = 0; i < listenerCount; i++) {
+            listeners.add(new LatencyListener());
+        }
+        TickEventHandler handler = new TickEventHandlerImpl(listenerExecutor, listeners);
+        Clock clock = new ClockImpl(Executors.newSingleThreadScheduledExecutor(),
+                tickNanos, TimeUnit.NANOSECONDS,
+                ClockLatencyHarness::exceptionHappened,
+                () -> {
+                    tickStarted();
+                    handler.run();
+                });
+        clock.startClock();
+        TimeUnit.SECONDS.sleep(WARMUP_SECONDS);
+        recording = true;
+        TimeUnit.SECONDS.sleep(seconds);
+        recording = false;
+        clock.stopClock();
+        clock.shutdown();
+        handler.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Prints an exception of the clock.
+     *
+     * <p>Stopping the clock cancels its ticks, which is reported as
+     * CancellationException and therefore ignored.
+     *
+     * @param clock the clock which threw the exception
+     * @param exception the occurred Exception
+     */
+    private static void exceptionHappened(Clock clock, Throwable exception) {
+        if (!(exception instanceof CancellationException)) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Records the jitter of a tick, which starts now.
+     *
+     * <p>It is only called by the thread of the clock.
+     */
+    private void tickStarted() {
+        long now = System.nanoTime();
+        if (ticks == 0) {
+            firstTick = now;
+        }
+        long current = firstTick + ticks * tickNanos;
+        ticks++;
+        if (recording) {
+            tickJitter.recordValue(Math.max(0, now - current));
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
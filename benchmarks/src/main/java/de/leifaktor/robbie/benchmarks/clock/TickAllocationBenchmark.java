@@ -0,0 +1,165 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.clock;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+import de.leifaktor.robbie.controllers.clock.ClockListenerThreadFactory;
+import de.leifaktor.robbie.controllers.clock.TickEventHandler;
+import de.leifaktor.robbie.controllers.clock.TickEventHandlerImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the bytes allocated per tick by TickEventHandlerImpl.
+ *
+ * <p>Run it with the gc profiler, as the jmh task does, and read
+ * {@code gc.alloc.rate.norm}. With the DIRECT executor every listener runs
+ * on the benchmark thread, so the figure is the allocation of the dispatch
+ * alone and should be zero. With the POOL executor it additionally contains
+ * what the executor allocates, e.g. when its workers park on the queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickAllocationBenchmark {
+
+    /**
+     * How the ClockListeners are run.
+     */
+    public enum ExecutorMode {
+
+        /**
+         * On the thread dispatching the tick.
+         */
+        DIRECT,
+
+        /**
+         * On a fixed pool with a preallocated queue.
+         */
+        POOL
+
+    }
+
+    /**
+     * How the ClockListeners are run.
+     */
+    @Param({"DIRECT", "POOL"})
+    private ExecutorMode mode;
+
+    /**
+     * The number of ClockListeners.
+     */
+    @Param({"10", "1000"})
+    private int listenerCount;
+
+    /**
+     * The number of ClockListeners, which did not run yet in the current tick.
+     */
+    private final AtomicInteger remaining = new AtomicInteger();
+
+    /**
+     * The TickEventHandler to measure.
+     */
+    private TickEventHandler handler;
+
+    /**
+     * Creates a new TickAllocationBenchmark.
+     */
+    public TickAllocationBenchmark() {
+        super();
+    }
+
+    /**
+     * Creates the ClockListeners and the TickEventHandler.
+     */
+    @Setup
+    public void setUp() {
+        ExecutorService executor;
+        if (mode == ExecutorMode.DIRECT) {
+            executor = MoreExecutors.newDirectExecutorService();
+        } else {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                    0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(listenerCount),
+                    new ClockListenerThreadFactory((thread, exception) -> { }));
+            pool.prestartAllCoreThreads();
+            executor = pool;
+        }
+        List<ClockListener> listeners = new ArrayList<>(listenerCount);
+        for (int i = 0; i < listenerCount; i++) {
+            listeners.add(remaining::decrementAndGet);
+        }
+        handler = new TickEventHandlerImpl(executor, listeners);
+    }
+
+    /**
+     * Shuts the TickEventHandler down.
+     *
+     * @throws InterruptedException if interrupted while waiting for the shutdown
+     * @throws TimeoutException if the ClockListeners did not finish in time
+     */
+    @TearDown
+    public void tearDown() throws InterruptedException, TimeoutException {
+        handler.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs one tick and waits until the handler reports it done.
+     */
+    @Benchmark
+    public void tick() {
+        remaining.set(listenerCount);
+        handler.run();
+        while (!handler.areDone()) {
+            Thread.onSpinWait();
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+import de.leifaktor.robbie.controllers.clock.ClockListenerThreadFactory;
+import de.leifaktor.robbie.controllers.clock.ShardedTickEventHandler;
+import de.leifaktor.robbie.controllers.clock.TickEventHandler;
+import de.leifaktor.robbie.controllers.clock.TickEventHandlerImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how long a TickEventHandler needs to run all its ClockListeners.
+ *
+ * <p>Every invocation runs one tick and waits until the last ClockListener
+ * has finished. The sample time mode reports the latency distribution of
+ * a tick, the throughput mode the number of ticks per second.
+ *
+ * <p>SHARED_QUEUE submits every listener to one fixed thread pool,
+ * WORK_STEALING submits one task per tick to a ForkJoinPool, which splits
+ * the listeners into shards stolen by its workers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickDispatchBenchmark {
+
+    /**
+     * The TickEventHandler implementations to compare.
+     */
+    public enum HandlerType {
+
+        /**
+         * A TickEventHandlerImpl on a fixed thread pool.
+         */
+        SHARED_QUEUE,
+
+        /**
+         * A ShardedTickEventHandler on a ForkJoinPool.
+         */
+        WORK_STEALING
+
+    }
+
+    /**
+     * The TickEventHandler implementation to measure.
+     */
+    @Param({"SHARED_QUEUE", "WORK_STEALING"})
+    private HandlerType handlerType;
+
+    /**
+     * The number of ClockListeners.
+     */
+    @Param({"1", "10", "100", "1000"})
+    private int listenerCount;
+
+    /**
+     * The number of ClockListeners, which did not run yet in the current tick.
+     */
+    private final AtomicInteger remaining = new AtomicInteger();
+
+    /**
+     * The TickEventHandler to measure.
+     */
+    private TickEventHandler handler;
+
+    /**
+     * Creates a new TickDispatchBenchmark.
+     */
+    public TickDispatchBenchmark() {
+        super();
+    }
+
+    /**
+     * Creates the ClockListeners and the TickEventHandler.
+     */
+    @Setup
+    public void setUp() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<ClockListener> listeners = new ArrayList<>(listenerCount);
+        for (int i = 0; i < listenerCount; i++) {
+            listeners.add(remaining::decrementAndGet);
+        }
+        Thread.UncaughtExceptionHandler ignore = (thread, exception) -> { };
+        if (handlerType == HandlerType.WORK_STEALING) {
+            handler = new ShardedTickEventHandler(threads, ignore, listeners);
+        } else {
+            handler = new TickEventHandlerImpl(Executors.newFixedThreadPool(threads,
+                    new ClockListenerThreadFactory(ignore)), listeners);
+        }
+    }
+
+    /**
+     * Shuts the TickEventHandler down.
+     *
+     * @throws InterruptedException if interrupted while waiting for the shutdown
+     * @throws TimeoutException if the ClockListeners did not finish in time
+     */
+    @TearDown
+    public void tearDown() throws InterruptedException, TimeoutException {
+        handler.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs one tick and waits for all ClockListeners to finish.
+     */
+    @Benchmark
+    public void tick() {
+        remaining.set(listenerCount);
+        handler.run();
+        while (remaining.get() != 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,177 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+import de.leifaktor.robbie.controllers.clock.ClockListenerThreadFactory;
+import de.leifaktor.robbie.controllers.clock.TickEventHandler;
+import de.leifaktor.robbie.controllers.clock.TickEventHandlerFactory;
+import de.leifaktor.robbie.controllers.clock.TickEventHandlerImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the tick latency of a fixed platform thread pool with virtual
+ * threads at thousands of ClockListeners, which may block.
+ *
+ * <p>Blocking listeners park for a fixed time, standing in for persistence,
+ * logging or network I/O. The VIRTUAL mode needs a JVM with virtual
+ * threads; on older JVMs it fails instead of silently measuring a cached
+ * platform thread pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VirtualThreadTickBenchmark {
+
+    /**
+     * How the ClockListeners are run.
+     */
+    public enum ExecutorMode {
+
+        /**
+         * A fixed pool with one platform thread per processor.
+         */
+        FIXED_POOL,
+
+        /**
+         * One virtual thread per listener invocation.
+         */
+        VIRTUAL
+
+    }
+
+    /**
+     * How the ClockListeners are run.
+     */
+    @Param({"FIXED_POOL", "VIRTUAL"})
+    private ExecutorMode mode;
+
+    /**
+     * The number of ClockListeners.
+     */
+    @Param({"1000", "5000"})
+    private int listenerCount;
+
+    /**
+     * How long every ClockListener blocks, in microseconds.
+     */
+    @Param({"0", "100"})
+    private long blockMicros;
+
+    /**
+     * The number of ClockListeners, which did not run yet in the current tick.
+     */
+    private final AtomicInteger remaining = new AtomicInteger();
+
+    /**
+     * The TickEventHandler to measure.
+     */
+    private TickEventHandler handler;
+
+    /**
+     * Creates a new VirtualThreadTickBenchmark.
+     */
+    public VirtualThreadTickBenchmark() {
+        super();
+    }
+
+    /**
+     * Creates the ClockListeners and the TickEventHandler.
+     *
+     * @throws IllegalStateException if mode is VIRTUAL and the JVM has no
+     *         virtual threads
+     */
+    @Setup
+    public void setUp() {
+        if (mode == ExecutorMode.VIRTUAL && !TickEventHandlerFactory.virtualThreadsAvailable()) {
+            throw new IllegalStateException("Virtual threads are unavailable.");
+        }
+        long blockNanos = TimeUnit.MICROSECONDS.toNanos(blockMicros);
+        List<ClockListener> listeners = new ArrayList<>(listenerCount);
+        for (int i = 0; i < listenerCount; i++) {
+            listeners.add(() -> {
+                if (blockNanos > 0L) {
+                    LockSupport.parkNanos(blockNanos);
+                }
+                remaining.decrementAndGet();
+            });
+        }
+        Thread.UncaughtExceptionHandler ignore = (thread, exception) -> { };
+        if (mode == ExecutorMode.VIRTUAL) {
+            handler = TickEventHandlerFactory.virtualThreads(ignore).create(listeners);
+        } else {
+            handler = new TickEventHandlerImpl(Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    new ClockListenerThreadFactory(ignore)), listeners);
+        }
+    }
+
+    /**
+     * Shuts the TickEventHandler down.
+     *
+     * @throws InterruptedException if interrupted while waiting for the shutdown
+     * @throws TimeoutException if the ClockListeners did not finish in time
+     */
+    @TearDown
+    public void tearDown() throws InterruptedException, TimeoutException {
+        handler.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs one tick and waits for all ClockListeners to finish.
+     */
+    @Benchmark
+    public void tick() {
+        remaining.set(listenerCount);
+        handler.run();
+        while (remaining.get() != 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,33 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Benchmarks for the clock and the dispatch of ticks to ClockListeners.
+ *
+ * <p>The JMH benchmarks are run by the jmh task of the benchmarks project,
+ * the HdrHistogram based {@link
+ * de.leifaktor.robbie.benchmarks.clock.ClockLatencyHarness} by its
+ * clockLatency task.
+ */
+package de.leifaktor.robbie.benchmarks.clock;
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,91 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.DoublePosition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A Collideable, which only moves when told to.
+ */
+public class BenchmarkCollideable implements Collideable {
+
+    /**
+     * The position.
+     */
+    private DoublePosition position;
+
+    /**
+     * Creates a new BenchmarkCollideable.
+     *
+     * @param xPos the x coordinate
+     * @param yPos the y coordinate
+     */
+    public BenchmarkCollideable(double xPos, double yPos) {
+        position = new DoublePosition(xPos, yPos);
+    }
+
+    @Override
+    public DoublePosition getPosition() {
+        return position;
+    }
+
+    /**
+     * Moves this by (xDiff, yDiff).
+     *
+     * @param xDiff the difference of the x coordinate
+     * @param yDiff the difference of the y coordinate
+     */
+    public void moveBy(double xDiff, double yDiff) {
+        position = new DoublePosition(position.getX() + xDiff, position.getY() + yDiff);
+    }
+
+    /**
+     * Creates BenchmarkCollideables placed uniformly at random in a square.
+     *
+     * <p>The side of the square is chosen so that there are density
+     * Collideables per square unit on average.
+     *
+     * @param population the number of Collideables
+     * @param density the number of Collideables per square unit
+     * @param seed the seed of the random positions
+     * @return the new Collideables
+     */
+    public static List<BenchmarkCollideable> scene(int population, double density, long seed) {
+        Random random = new Random(seed);
+        double side = Math.sqrt(population / density);
+        List<BenchmarkCollideable> collideables = new ArrayList<>(population);
+        for (int i = 0; i < population; i++) {
+            collideables.add(new BenchmarkCollideable(
+                    random.nextDouble() * side, random.nextDouble() * side));
+        }
+        return collideables;
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,176 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.controllers.collision.CollisionHandlerProviderImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link CollisionDetector#doDetection(java.util.Collection)}.
+ *
+ * <p>Every detector runs on random scenes of several populations and
+ * densities. The density is the average number of Collideables per square
+ * unit, while the limit is always one unit.
+ *
+ * <p>Before every detection a tenth of the Collideables moves a little,
+ * taking turns, so detectors caching results between detections, like the
+ * IncrementalCollisionDetector, have to redo part of their work. Every
+ * Collideable moves back and forth between two positions, so the scene
+ * does not drift apart. Moving costs the same for all detectors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class CollisionDetectionBenchmark {
+
+    /**
+     * The euclidean distance under which a collision is detected.
+     */
+    private static final double LIMIT = 1;
+
+    /**
+     * The share of the Collideables moving before each detection.
+     */
+    private static final double MOVING_FRACTION = 0.1;
+
+    /**
+     * The distance a Collideable moves along each axis.
+     */
+    private static final double STEP = 0.1;
+
+    /**
+     * The number of Collideables.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    private int population;
+
+    /**
+     * The average number of Collideables per square unit.
+     */
+    @Param({"0.1", "1", "5"})
+    private double density;
+
+    /**
+     * The detector to measure.
+     */
+    @Param
+    private DetectorType detectorType;
+
+    /**
+     * The Collideables of the scene.
+     */
+    private List<BenchmarkCollideable> collideables;
+
+    /**
+     * The detector created from detectorType.
+     */
+    private CollisionDetector detector;
+
+    /**
+     * The number of collisions handled in the current detection.
+     */
+    private long collisions;
+
+    /**
+     * The index of the next Collideable to move.
+     */
+    private int nextMover;
+
+    /**
+     * The direction of the current round of moves, either 1 or -1.
+     */
+    private double direction = 1;
+
+    /**
+     * Creates a new CollisionDetectionBenchmark.
+     */
+    public CollisionDetectionBenchmark() {
+        super();
+    }
+
+    /**
+     * Creates the scene and the detector.
+     *
+     * @throws IllegalStateException if the detector is unavailable in this JVM
+     */
+    @Setup
+    public void setUp() {
+        collideables = BenchmarkCollideable.scene(population, density, 0x5eedL);
+        CollisionHandlerProvider provider = new CollisionHandlerProviderImpl();
+        provider.register(BenchmarkCollideable.class, BenchmarkCollideable.class,
+                (c1, c2) -> collisions++);
+        detector = detectorType.create(LIMIT, provider);
+    }
+
+    /**
+     * Runs one detection.
+     *
+     * @return the number of handled collisions
+     */
+    @Benchmark
+    public long doDetection() {
+        move();
+        collisions = 0;
+        detector.doDetection(collideables);
+        return collisions;
+    }
+
+    /**
+     * Moves the next share of the Collideables.
+     *
+     * <p>Once all Collideables have moved, the direction is reversed.
+     */
+    private void move() {
+        int movers = Math.max(1, (int) (population * MOVING_FRACTION));
+        for (int i = 0; i < movers; i++) {
+            collideables.get(nextMover).moveBy(direction * STEP, direction * STEP);
+            nextMover++;
+            if (nextMover == population) {
+                nextMover = 0;
+                direction = -direction;
+            }
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.controllers.collision.CollideablePair;
+import de.leifaktor.robbie.controllers.collision.CollisionDetectorImpl;
+import de.leifaktor.robbie.controllers.collision.DistanceKernel;
+import de.leifaktor.robbie.controllers.collision.DistanceKernels;
+import de.leifaktor.robbie.controllers.collision.GridCollisionDetector;
+import de.leifaktor.robbie.controllers.collision.IncrementalCollisionDetector;
+import de.leifaktor.robbie.controllers.collision.LimitMode;
+import de.leifaktor.robbie.controllers.collision.PairMode;
+import de.leifaktor.robbie.controllers.collision.ParallelCollisionDetector;
+import de.leifaktor.robbie.controllers.collision.SweepAndPruneCollisionDetector;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The CollisionDetectors to compare.
+ *
+ * <p>All of them but the STREAM_PIPELINE baseline report distinct unordered
+ * pairs, so they do the same work and hand the same collisions to the
+ * CollisionHandlers.
+ */
+public enum DetectorType {
+
+    /**
+     * The original implementation building the pairs with streams and a
+     * CollideablePair per pair. It is the baseline for all others.
+     *
+     * <p>Just like the original implementation it builds all n * n ordered
+     * pairs, including every Collideable paired with itself. So every
+     * contact is handled twice and every Collideable collides with itself.
+     */
+    STREAM_PIPELINE {
+        @Override
+        CollisionDetector create(double limit, CollisionHandlerProvider provider) {
+            double squaredLimit = limit * limit;
+            return collideables -> collideables.stream().flatMap(c1 ->
+                    collideables.stream().map(c2 -> pair(c1, c2)))
+                    .filter(pair -> pair.squaredDistance() < squaredLimit)
+                    .forEach(pair -> pair.collide(provider));
+        }
+    },
+
+    /**
+     * The CollisionDetectorImpl with the scalar DistanceKernel.
+     */
+    BRUTE_FORCE {
+        @Override
+        CollisionDetector create(double limit, CollisionHandlerProvider provider) {
+            return new CollisionDetectorImpl(limit, LimitMode.DISTANCE, provider,
+                    PairMode.DISTINCT_UNORDERED, DistanceKernels.scalar());
+        }
+    },
+
+    /**
+     * The CollisionDetectorImpl with the vectorized DistanceKernel.
+     *
+     * <p>The JVM needs the module {@code jdk.incubator.vector}, otherwise
+     * creating the detector fails, instead of measuring BRUTE_FORCE again.
+     */
+    BRUTE_FORCE_VECTORIZED {
+        @Override
+        CollisionDetector create(double limit, CollisionHandlerProvider provider) {
+            DistanceKernel kernel = DistanceKernels.vectorized();
+            if (kernel == DistanceKernels.scalar()) {
+                throw new IllegalStateException("The vectorized DistanceKernel is unavailable.");
+            }
+            return new CollisionDetectorImpl(limit, LimitMode.DISTANCE, provider,
+                    PairMode.DISTINCT_UNORDERED, kernel);
+        }
+    },
+
+    /**
+     * The GridCollisionDetector.
+     */
+    GRID {
+        @Override
+        CollisionDetector create(double limit, CollisionHandlerProvider provider) {
+            return new GridCollisionDetector(
+                    limit, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED);
+        }
+    },
+
+    /**
+     * The ParallelCollisionDetector in the common ForkJoinPool.
+     */
+    PARALLEL {
+        @Override
+        CollisionDetector create(double limit, CollisionHandlerProvider provider) {
+            return new ParallelCollisionDetector(limit, LimitMode.DISTANCE, provider,
+                    PairMode.DISTINCT_UNORDERED, ForkJoinPool.commonPool());
+        }
+    },
+
+    /**
+     * The SweepAndPruneCollisionDetector.
+     */
+    SWEEP_AND_PRUNE {
+        @Override
+        CollisionDetector create(double limit, CollisionHandlerProvider provider) {
+            return new SweepAndPruneCollisionDetector(
+                    limit, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED);
+        }
+    },
+
+    /**
+     * The IncrementalCollisionDetector, which only re-tests the moved Collideables.
+     */
+    INCREMENTAL {
+        @Override
+        CollisionDetector create(double limit, CollisionHandlerProvider provider) {
+            return new IncrementalCollisionDetector(limit, LimitMode.DISTANCE, provider);
+        }
+    };
+
+    /**
+     * Creates a new CollisionDetector of this type.
+     *
+     * @param limit the euclidean distance under which a collision is detected
+     * @param provider the CollisionHandlerProvider to use
+     * @return a new CollisionDetector
+     * @throws IllegalStateException if this type is unavailable in the running JVM
+     */
+    abstract CollisionDetector create(double limit, CollisionHandlerProvider provider);
+
+    /**
+     * Creates a CollideablePair, just like the original implementation did.
+     *
+     * @param collideable1 the first Collideable
+     * @param collideable2 the second Collideable
+     * @param <V> the type of collideable1
+     * @param <W> the type of collideable2
+     * @return a CollideablePair containing collideable1 and collideable2
+     */
+    private static <V extends Collideable, W extends Collideable>
+            CollideablePair<V, W> pair(V collideable1, W collideable2) {
+        return new CollideablePair<>(collideable1, collideable2);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,163 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.DoublePosition;
+import de.leifaktor.robbie.controllers.collision.DistanceKernel;
+import de.leifaktor.robbie.controllers.collision.DistanceKernels;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the DistanceKernels with computing the distances of DoublePositions
+ * in a stream pipeline.
+ *
+ * <p>Every invocation computes the squared distances of one position to a
+ * block of others.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DistanceKernelBenchmark {
+
+    /**
+     * The number of other positions.
+     */
+    @Param({"16", "256", "4096"})
+    private int blockSize;
+
+    /**
+     * The x coordinates of the other positions.
+     */
+    private double[] xs;
+
+    /**
+     * The y coordinates of the other positions.
+     */
+    private double[] ys;
+
+    /**
+     * The other positions.
+     */
+    private List<DoublePosition> positions;
+
+    /**
+     * The array to write the distances to.
+     */
+    private double[] distances;
+
+    /**
+     * The scalar DistanceKernel.
+     */
+    private final DistanceKernel scalar = DistanceKernels.scalar();
+
+    /**
+     * The vectorized DistanceKernel.
+     */
+    private final DistanceKernel vectorized = DistanceKernels.vectorized();
+
+    /**
+     * Creates a new DistanceKernelBenchmark.
+     */
+    public DistanceKernelBenchmark() {
+        super();
+    }
+
+    /**
+     * Creates the positions.
+     *
+     * @throws IllegalStateException if the vectorized kernel is unavailable
+     */
+    @Setup
+    public void setUp() {
+        if (vectorized == scalar) {
+            throw new IllegalStateException("The vectorized DistanceKernel is unavailable.");
+        }
+        List<BenchmarkCollideable> collideables =
+                BenchmarkCollideable.scene(blockSize, 1, 0x5eedL);
+        xs = new double[blockSize];
+        ys = new double[blockSize];
+        DoublePosition[] array = new DoublePosition[blockSize];
+        for (int j = 0; j < blockSize; j++) {
+            array[j] = collideables.get(j).getPosition();
+            xs[j] = array[j].getX();
+            ys[j] = array[j].getY();
+        }
+        positions = Arrays.asList(array);
+        distances = new double[blockSize];
+    }
+
+    /**
+     * Computes the distances with the scalar DistanceKernel.
+     *
+     * @return the distances
+     */
+    @Benchmark
+    public double[] scalar() {
+        scalar.distances(0.5, 0.5, xs, ys, 0, blockSize, distances);
+        return distances;
+    }
+
+    /**
+     * Computes the distances with the vectorized DistanceKernel.
+     *
+     * @return the distances
+     */
+    @Benchmark
+    public double[] vectorized() {
+        vectorized.distances(0.5, 0.5, xs, ys, 0, blockSize, distances);
+        return distances;
+    }
+
+    /**
+     * Computes the distances of DoublePositions in a stream pipeline like
+     * the original CollisionDetectorImpl.
+     *
+     * @return the distances
+     */
+    @Benchmark
+    public double[] streamPipeline() {
+        DoublePosition position = new DoublePosition(0.5, 0.5);
+        return positions.stream().mapToDouble(position::squaredDistanceTo).toArray();
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
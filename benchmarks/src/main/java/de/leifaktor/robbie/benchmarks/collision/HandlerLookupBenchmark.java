@@ -0,0 +1,169 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandler;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.controllers.collision.CollisionHandlerProviderImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of
+ * {@link CollisionHandlerProvider#getHandlerFor(Collideable, Collideable)}.
+ *
+ * <p>The lookups hit a handler registered for the exact classes, one
+ * registered in swapped orientation and one registered for a super class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerLookupBenchmark {
+
+    /**
+     * A Collideable with a handler of its own.
+     */
+    static class Player extends BenchmarkCollideable {
+
+        /**
+         * Creates a new Player at the origin.
+         */
+        Player() {
+            super(0, 0);
+        }
+
+    }
+
+    /**
+     * A Collideable only handled through its super class.
+     */
+    static class Monster extends BenchmarkCollideable {
+
+        /**
+         * Creates a new Monster at the origin.
+         */
+        Monster() {
+            super(0, 0);
+        }
+
+    }
+
+    /**
+     * A Collideable only handled in swapped orientation.
+     */
+    static class Item extends BenchmarkCollideable {
+
+        /**
+         * Creates a new Item at the origin.
+         */
+        Item() {
+            super(0, 0);
+        }
+
+    }
+
+    /**
+     * The provider to measure.
+     */
+    private final CollisionHandlerProvider provider = new CollisionHandlerProviderImpl();
+
+    /**
+     * A Player.
+     */
+    private final Player player = new Player();
+
+    /**
+     * A Monster.
+     */
+    private final Monster monster = new Monster();
+
+    /**
+     * An Item.
+     */
+    private final Item item = new Item();
+
+    /**
+     * Creates a new HandlerLookupBenchmark.
+     */
+    public HandlerLookupBenchmark() {
+        super();
+    }
+
+    /**
+     * Registers the handlers.
+     */
+    @Setup
+    public void setUp() {
+        provider.register(Player.class, Player.class, (c1, c2) -> { });
+        provider.register(Player.class, BenchmarkCollideable.class, (c1, c2) -> { });
+        provider.register(Item.class, Player.class, (c1, c2) -> { });
+    }
+
+    /**
+     * Looks up the handler registered for the exact classes.
+     *
+     * @return the handler
+     */
+    @Benchmark
+    public CollisionHandler<Player, Player> exact() {
+        return provider.getHandlerFor(player, player);
+    }
+
+    /**
+     * Looks up the handler registered in swapped orientation.
+     *
+     * @return the handler
+     */
+    @Benchmark
+    public CollisionHandler<Player, Item> swapped() {
+        return provider.getHandlerFor(player, item);
+    }
+
+    /**
+     * Looks up the handler registered for a super class.
+     *
+     * @return the handler
+     */
+    @Benchmark
+    public CollisionHandler<Player, Monster> superClass() {
+        return provider.getHandlerFor(player, monster);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,123 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.benchmarks.collision;
+
+import de.leifaktor.robbie.controllers.collision.Pair;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link Pair#equals(Object)} and {@link Pair#hashCode()}.
+ *
+ * <p>Every invocation compares each Pair of a list to its successor and
+ * hashes it, so the cost is reported per population.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PairBenchmark {
+
+    /**
+     * The number of Pairs.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    private int population;
+
+    /**
+     * The Pairs; every second one is equal to its predecessor.
+     */
+    private Pair<?, ?>[] pairs;
+
+    /**
+     * Creates a new PairBenchmark.
+     */
+    public PairBenchmark() {
+        super();
+    }
+
+    /**
+     * Creates the Pairs.
+     */
+    @Setup
+    public void setUp() {
+        List<BenchmarkCollideable> collideables =
+                BenchmarkCollideable.scene(population + 1, 1, 0x5eedL);
+        pairs = new Pair<?, ?>[population];
+        for (int i = 0; i < population; i++) {
+            if (i % 2 == 1) {
+                pairs[i] = new Pair<>(collideables.get(i), collideables.get(i - 1));
+            } else {
+                pairs[i] = new Pair<>(collideables.get(i), collideables.get(i + 1));
+            }
+        }
+    }
+
+    /**
+     * Compares every Pair with its successor.
+     *
+     * @return the number of equal Pairs
+     */
+    @Benchmark
+    public int pairEquals() {
+        int equal = 0;
+        for (int i = 1; i < pairs.length; i++) {
+            if (pairs[i - 1].equals(pairs[i])) {
+                equal++;
+            }
+        }
+        return equal;
+    }
+
+    /**
+     * Hashes every Pair.
+     *
+     * @return the sum of the hash codes
+     */
+    @Benchmark
+    public int pairHashCode() {
+        int sum = 0;
+        for (Pair<?, ?> pair : pairs) {
+            sum += pair.hashCode();
+        }
+        return sum;
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,219 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.Clock;
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A ClockListener adapting the tick duration of its clock to the time its
+ * delegate needs per tick.
+ *
+ * <p>The controller measures how long every call of the delegate takes and
+ * keeps an exponentially weighted moving average of it. Every
+ * {@link #WINDOW} ticks it computes the tick duration at which the delegate
+ * would keep the clock busy for {@link #TARGET_LOAD} of a tick, clamps it
+ * to the configured bounds and hands it to
+ * {@link Clock#setTickDuration(long, TimeUnit)}, as long as it differs
+ * from the current one by more than {@link #HYSTERESIS}. So under CPU
+ * contention the simulation slows down smoothly, and speeds up again once
+ * the contention is gone, without pausing the clock.
+ *
+ * <p>The work is measured on the calling thread, so the delegate should do
+ * its work synchronously. Asynchronous {@link TickEventHandler}s are
+ * throttled by {@link OverrunPolicy#SLOW_DOWN} instead.
+ *
+ * <p>Since the clock needs its listener at construction time, the clock to
+ * control is set afterwards by {@link #control(Clock)}. Until then the
+ * controller only measures.
+ */
+public class AdaptiveTickController implements ClockListener {
+
+    /**
+     * The share of a tick the delegate should be busy.
+     */
+    public static final double TARGET_LOAD = 0.75;
+
+    /**
+     * The number of ticks between two adjustments.
+     */
+    public static final int WINDOW = 16;
+
+    /**
+     * The relative change below which the tick duration is left alone.
+     */
+    public static final double HYSTERESIS = 0.1;
+
+    /**
+     * The weight of a new sample in the moving average.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * The listener doing the actual work.
+     */
+    private final ClockListener delegate;
+
+    /**
+     * The smallest tick duration in nanoseconds.
+     */
+    private final long minTickNanos;
+
+    /**
+     * The largest tick duration in nanoseconds.
+     */
+    private final long maxTickNanos;
+
+    /**
+     * The source of the current time in nanoseconds.
+     */
+    private final LongSupplier nanoTime;
+
+    /**
+     * The clock to adjust or null, if not yet set.
+     */
+    private volatile Clock clock;
+
+    /**
+     * The moving average of the busy time per tick in nanoseconds.
+     */
+    private volatile double averageNanos = -1.0;
+
+    /**
+     * The ticks passed since the last adjustment.
+     */
+    private int sinceAdjustment;
+
+    /**
+     * Creates a new AdaptiveTickController.
+     *
+     * @param delegate the listener doing the actual work
+     * @param minTickDuration the smallest tick duration to set
+     * @param maxTickDuration the largest tick duration to set
+     * @param unit the unit of minTickDuration and maxTickDuration
+     * @throws NullPointerException if delegate or unit is null
+     * @throws IllegalArgumentException if minTickDuration is not positive or
+     *                                  larger than maxTickDuration
+     */
+    public AdaptiveTickController(ClockListener delegate,
+            long minTickDuration, long maxTickDuration, TimeUnit unit) {
+        this(delegate, minTickDuration, maxTickDuration, unit, System::nanoTime);
+    }
+
+    /**
+     * Creates a new AdaptiveTickController reading time from nanoTime.
+     *
+     * @param delegate the listener doing the actual work
+     * @param minTickDuration the smallest tick duration to set
+     * @param maxTickDuration the largest tick duration to set
+     * @param unit the unit of minTickDuration and maxTickDuration
+     * @param nanoTime the source of the current time in nanoseconds
+     * @throws NullPointerException if any argument is null
+     * @throws IllegalArgumentException if minTickDuration is not positive or
+     *                                  larger than maxTickDuration
+     */
+    AdaptiveTickController(ClockListener delegate,
+            long minTickDuration, long maxTickDuration, TimeUnit unit, LongSupplier nanoTime) {
+        if (minTickDuration <= 0L || minTickDuration > maxTickDuration) {
+            throw new IllegalArgumentException(
+                    "The bounds must be positive and minTickDuration <= maxTickDuration.");
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.nanoTime = Objects.requireNonNull(nanoTime);
+        minTickNanos = unit.toNanos(minTickDuration);
+        maxTickNanos = unit.toNanos(maxTickDuration);
+    }
+
+    /**
+     * Sets the clock whose tick duration is adjusted.
+     *
+     * @param clock the clock calling this listener
+     * @throws NullPointerException if clock is null
+     */
+    public void control(Clock clock) {
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    @Override
+    public void ticksPassed() {
+        long start = nanoTime.getAsLong();
+        delegate.ticksPassed();
+        measured(nanoTime.getAsLong() - start, 1);
+    }
+
+    @Override
+    public void ticksPassed(int elapsedTicks) {
+        long start = nanoTime.getAsLong();
+        delegate.ticksPassed(elapsedTicks);
+        measured(nanoTime.getAsLong() - start, elapsedTicks);
+    }
+
+    /**
+     * Adds a measurement and adjusts the clock, if the window is complete.
+     *
+     * @param busyNanos the time the delegate was busy
+     * @param ticks the number of ticks it handled in that time
+     */
+    private void measured(long busyNanos, int ticks) {
+        double perTick = (double) busyNanos / ticks;
+        averageNanos = averageNanos < 0.0
+                ? perTick : averageNanos + SMOOTHING * (perTick - averageNanos);
+        if (++sinceAdjustment >= WINDOW) {
+            sinceAdjustment = 0;
+            adjust();
+        }
+    }
+
+    /**
+     * Sets the tick duration fitting the average busy time.
+     */
+    private void adjust() {
+        Clock controlled = clock;
+        if (controlled == null) {
+            return;
+        }
+        long target = Math.max(minTickNanos,
+                Math.min(maxTickNanos, (long) (averageNanos / TARGET_LOAD)));
+        long current = controlled.getTickDuration(TimeUnit.NANOSECONDS);
+        if (Math.abs(target - current) > current * HYSTERESIS) {
+            controlled.setTickDuration(target, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns the moving average of the busy time per tick.
+     *
+     * @param unit the unit to return the average in
+     * @return the average busy time per tick, or 0 if nothing was measured yet
+     */
+    public long getAverageBusyTime(TimeUnit unit) {
+        return unit.convert((long) Math.max(0.0, averageNanos), TimeUnit.NANOSECONDS);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
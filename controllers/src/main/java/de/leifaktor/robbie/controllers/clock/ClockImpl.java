@@ -29,6 +29,7 @@ import com.google.common.util.concurrent.MoreExecutors;
 import de.leifaktor.robbie.api.controllers.clock.Clock;
 import de.leifaktor.robbie.api.controllers.clock.ClockListener;
 import de.leifaktor.robbie.api.controllers.clock.ClockRestorer;
+import de.leifaktor.robbie.api.controllers.clock.TicksTooFastException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,9 +37,32 @@ import org.slf4j.LoggerFactory;
 import java.util.Objects;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 /**
  * Implements the Clock interface thread-safe.
+ *
+ * <p>By default the ClockListener is called once per scheduled execution. If
+ * created with a maximum number of catch-up ticks the clock runs in
+ * fixed-timestep mode instead: every execution measures the time really
+ * passed and calls {@link ClockListener#ticksPassed(int)} with the number of
+ * whole ticks elapsed, see {@link FixedTimestepLoop}.
+ *
+ * <p>If the ClockListener is a {@link TickEventHandler}, the clock checks
+ * before every tick whether the listeners of the previous tick are done.
+ * Overruns are handled according to the {@link OverrunPolicy}, see
+ * {@link OverrunGuard}, and reported as {@link TicksTooFastException} to an
+ * overrun handler, which logs them by default. They are not reported to the
+ * ClockRestorer, since an overrun is no failure and needs no restart. In
+ * fixed-timestep mode the time of the ticks dropped by SKIP or SLOW_DOWN is
+ * dropped as well, so they are not caught up on later.
+ *
+ * <p>All state changes, including changes of the tick duration made from
+ * within a tick, are serialized by the clock's monitor. The FixedTimestepLoop
+ * is created on every resume and kept when the tick duration changes, so the
+ * accumulated time carries over. The OverrunGuard lives as long as the
+ * clock, so coalesced ticks and the stride carry over restarts, too.
  */
 public class ClockImpl implements Clock {
 
@@ -47,6 +71,11 @@ public class ClockImpl implements Clock {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(ClockImpl.class);
 
+    /**
+     * The value of maxCatchUpTicks selecting the fixed-rate mode.
+     */
+    private static final int FIXED_RATE = 0;
+
     private final ClockListener clockListener;
 
     /**
@@ -56,22 +85,65 @@ public class ClockImpl implements Clock {
 
     private final ClockRestorer restorer;
 
-    private ClockState clockState = ClockState.STOPPED;
+    /**
+     * The maximum number of ticks handed over per execution in fixed-timestep
+     * mode, or FIXED_RATE.
+     */
+    private final int maxCatchUpTicks;
+
+    /**
+     * How ticks overrunning a TickEventHandler are handled.
+     */
+    private final OverrunPolicy overrunPolicy;
+
+    /**
+     * The source of the current time in nanoseconds.
+     */
+    private final LongSupplier nanoTime;
+
+    /**
+     * The guard of a TickEventHandler against overruns or null, if the
+     * ClockListener is none.
+     */
+    private final OverrunGuard overrunGuard;
+
+    /**
+     * Serializes the executions of the tick task.
+     */
+    private final Object tickLock = new Object();
+
+    private volatile ClockState clockState = ClockState.STOPPED;
 
     /**
-     * The duration of a tick.
+     * The duration of a tick, guarded by this.
      */
     private long tickDuration;
 
     /**
-     * The unit of the duration of a tick.
+     * The unit of the duration of a tick, guarded by this.
      */
     private TimeUnit tickDurationUnit;
 
     /**
      * The current periodic fireTickEvent caller.
      */
-    private ListenableScheduledFuture<?> callerHandle;
+    private volatile ListenableScheduledFuture<?> callerHandle;
+
+    /**
+     * The execution guard of the current tick task, guarded by this.
+     */
+    private TickRun currentRun;
+
+    /**
+     * The task run once per tick since the last resume, guarded by this.
+     */
+    private Runnable tickTask;
+
+    /**
+     * The FixedTimestepLoop of tickTask or null in fixed-rate mode, written
+     * under this and read by the OverrunGuard's callbacks.
+     */
+    private volatile FixedTimestepLoop timestepLoop;
 
     /**
      * Creates a new Clock.
@@ -87,9 +159,141 @@ public class ClockImpl implements Clock {
     public ClockImpl(ScheduledExecutorService executor,
                      long tickDuration, TimeUnit tickDurationUnit,
                      ClockRestorer restorer, ClockListener clockListener) {
+        this(executor, tickDuration, tickDurationUnit, restorer, clockListener, FIXED_RATE);
+    }
+
+    /**
+     * Creates a new Clock, in fixed-timestep mode if maxCatchUpTicks is positive.
+     *
+     * @param executor the scheduledExecutorService to schedule this Clock in.
+     *                It may get shutdown.
+     * @param tickDuration the duration of a tick
+     * @param tickDurationUnit the unit of tickDuration
+     * @param restorer the ClockRestorer to report failures to
+     * @param clockListener the ClockListener to notify
+     * @param maxCatchUpTicks the maximum number of ticks handed to the
+     *                        listener at once, surplus ticks are dropped;
+     *                        0 selects the fixed-rate mode
+     * @throws NullPointerException if any argument is null
+     * @throws IllegalArgumentException if tickDuration is not positive or
+     *                                  maxCatchUpTicks is negative
+     */
+    public ClockImpl(ScheduledExecutorService executor,
+                     long tickDuration, TimeUnit tickDurationUnit,
+                     ClockRestorer restorer, ClockListener clockListener,
+                     int maxCatchUpTicks) {
+        this(executor, tickDuration, tickDurationUnit, restorer, clockListener,
+                maxCatchUpTicks, OverrunPolicy.SKIP);
+    }
+
+    /**
+     * Creates a new Clock handling overruns of a TickEventHandler according
+     * to overrunPolicy.
+     *
+     * @param executor the scheduledExecutorService to schedule this Clock in.
+     *                It may get shutdown.
+     * @param tickDuration the duration of a tick
+     * @param tickDurationUnit the unit of tickDuration
+     * <p>Overruns are logged.
+     *
+     * @param executor the scheduledExecutorService to schedule this Clock in.
+     *                It may get shutdown.
+     * @param tickDuration the duration of a tick
+     * @param tickDurationUnit the unit of tickDuration
+     * @param restorer the ClockRestorer to report failures to
+     * @param clockListener the ClockListener to notify
+     * @param maxCatchUpTicks the maximum number of ticks handed to the
+     *                        listener at once, surplus ticks are dropped;
+     *                        0 selects the fixed-rate mode
+     * @param overrunPolicy how ticks are handled, which are due before the
+     *                      TickEventHandler finished the previous one
+     * @throws NullPointerException if any argument is null
+     * @throws IllegalArgumentException if tickDuration is not positive or
+     *                                  maxCatchUpTicks is negative
+     */
+    public ClockImpl(ScheduledExecutorService executor,
+                     long tickDuration, TimeUnit tickDurationUnit,
+                     ClockRestorer restorer, ClockListener clockListener,
+                     int maxCatchUpTicks, OverrunPolicy overrunPolicy) {
+        this(executor, tickDuration, tickDurationUnit, restorer, clockListener,
+                maxCatchUpTicks, overrunPolicy, ClockImpl::logOverrun);
+    }
+
+    /**
+     * Creates a new Clock handling overruns of a TickEventHandler according
+     * to overrunPolicy and reporting them to overrunHandler.
+     *
+     * <p>The overrun handler is called on the thread running the tick, once
+     * per streak of overrunning ticks. It should return quickly and must not
+     * stop or restart the clock, which keeps ticking.
+     *
+     * @param executor the scheduledExecutorService to schedule this Clock in.
+     *                It may get shutdown.
+     * @param tickDuration the duration of a tick
+     * @param tickDurationUnit the unit of tickDuration
+     * @param restorer the ClockRestorer to report failures to
+     * @param clockListener the ClockListener to notify
+     * @param maxCatchUpTicks the maximum number of ticks handed to the
+     *                        listener at once, surplus ticks are dropped;
+     *                        0 selects the fixed-rate mode
+     * @param overrunPolicy how ticks are handled, which are due before the
+     *                      TickEventHandler finished the previous one
+     * @param overrunHandler gets the overruns reported
+     * @throws NullPointerException if any argument is null
+     * @throws IllegalArgumentException if tickDuration is not positive or
+     *                                  maxCatchUpTicks is negative
+     */
+    public ClockImpl(ScheduledExecutorService executor,
+                     long tickDuration, TimeUnit tickDurationUnit,
+                     ClockRestorer restorer, ClockListener clockListener,
+                     int maxCatchUpTicks, OverrunPolicy overrunPolicy,
+                     Consumer<? super TicksTooFastException> overrunHandler) {
+        this(executor, tickDuration, tickDurationUnit, restorer, clockListener,
+                maxCatchUpTicks, overrunPolicy, overrunHandler, System::nanoTime);
+    }
+
+    /**
+     * Creates a new Clock reading time from nanoTime, which has to agree with
+     * the time the executor schedules by.
+     *
+     * @param executor the scheduledExecutorService to schedule this Clock in.
+     *                It may get shutdown.
+     * @param tickDuration the duration of a tick
+     * @param tickDurationUnit the unit of tickDuration
+     * @param restorer the ClockRestorer to report failures to
+     * @param clockListener the ClockListener to notify
+     * @param maxCatchUpTicks the maximum number of ticks handed to the
+     *                        listener at once, surplus ticks are dropped;
+     *                        0 selects the fixed-rate mode
+     * @param overrunPolicy how ticks are handled, which are due before the
+     *                      TickEventHandler finished the previous one
+     * @param overrunHandler gets the overruns reported
+     * @param nanoTime the source of the current time in nanoseconds
+     * @throws NullPointerException if any argument is null
+     * @throws IllegalArgumentException if tickDuration is not positive or
+     *                                  maxCatchUpTicks is negative
+     */
+    ClockImpl(ScheduledExecutorService executor,
+              long tickDuration, TimeUnit tickDurationUnit,
+              ClockRestorer restorer, ClockListener clockListener,
+              int maxCatchUpTicks, OverrunPolicy overrunPolicy,
+              Consumer<? super TicksTooFastException> overrunHandler, LongSupplier nanoTime) {
+        if (maxCatchUpTicks < 0) {
+            throw new IllegalArgumentException("maxCatchUpTicks may not be negative.");
+        }
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        this.overrunPolicy = Objects.requireNonNull(overrunPolicy);
         this.restorer = Objects.requireNonNull(restorer);
         this.executor = MoreExecutors.listeningDecorator(executor);
         this.clockListener = Objects.requireNonNull(clockListener);
+        this.nanoTime = Objects.requireNonNull(nanoTime);
+        Objects.requireNonNull(overrunHandler);
+        if (clockListener instanceof TickEventHandler) {
+            overrunGuard = new OverrunGuard(((TickEventHandler) clockListener)::areDone,
+                    overrunPolicy, this::handOver, this::dropTick, overrunHandler);
+        } else {
+            overrunGuard = null;
+        }
         setTickDuration0(tickDuration, tickDurationUnit);
     }
 
@@ -99,35 +303,55 @@ public class ClockImpl implements Clock {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation allows changing the duration while the clock is
+     * running. The tick task is then rescheduled, keeping the time of the next
+     * tick, so no tick is lost or doubled by the change. This is safe from
+     * within a tick as well.
+     */
     @Override
-    public void setTickDuration(long duration, TimeUnit timeUnit) {
+    public synchronized void setTickDuration(long duration, TimeUnit timeUnit) {
         throwExceptionIfShutdown();
-        if (clockState != ClockState.PAUSED && clockState != ClockState.STOPPED) {
-            throw new IllegalStateException("Clock is running.");
-        }
         setTickDuration0(duration, timeUnit);
+        if (clockState == ClockState.RUNNING) {
+            reschedule();
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The clock is marked shutdown before waiting for the executor, so a
+     * tick still running does not block on the clock's monitor meanwhile.
+     */
     @Override
     public void shutdown() {
-        throwExceptionIfShutdown();
-        if (clockState != ClockState.STOPPED) {
-            throw new IllegalStateException("Clock is not stopped.");
+        long timeout;
+        TimeUnit timeoutUnit;
+        synchronized (this) {
+            throwExceptionIfShutdown();
+            if (clockState != ClockState.STOPPED) {
+                throw new IllegalStateException("Clock is not stopped.");
+            }
+            clockState = ClockState.SHUTDOWN;
+            timeout = tickDuration;
+            timeoutUnit = tickDurationUnit;
         }
         executor.shutdown();
         try {
-            executor.awaitTermination(tickDuration, tickDurationUnit);
+            executor.awaitTermination(timeout, timeoutUnit);
         } catch (InterruptedException e) {
             LOGGER.debug("Got interrupted during shutdown.", e);
         }
         finally {
             executor.shutdownNow();
         }
-        clockState = ClockState.SHUTDOWN;
     }
 
     @Override
-    public void startClock() {
+    public synchronized void startClock() {
         throwExceptionIfShutdown();
         if (clockState != ClockState.STOPPED) {
             throw new IllegalStateException("Clock is not stopped.");
@@ -137,7 +361,7 @@ public class ClockImpl implements Clock {
     }
 
     @Override
-    public void stopClock() {
+    public synchronized void stopClock() {
         throwExceptionIfShutdown();
         if (clockState == ClockState.STOPPED) {
             throw new IllegalStateException("Clock is already stopped");
@@ -150,37 +374,139 @@ public class ClockImpl implements Clock {
     }
 
     @Override
-    public void pauseClock() {
+    public synchronized void pauseClock() {
         throwExceptionIfShutdown();
         if (clockState != ClockState.RUNNING) {
             throw new IllegalStateException("Clock is not running.");
         }
+        currentRun.retire();
         callerHandle.cancel(false);
         clockState = ClockState.PAUSED;
     }
 
     @Override
-    public void resumeClock() {
+    public synchronized void resumeClock() {
         throwExceptionIfShutdown();
         if (clockState != ClockState.PAUSED) {
             throw new IllegalStateException("Clock is not paused.");
         }
-        callerHandle = executor.scheduleAtFixedRate(clockListener::ticksPassed, 0,
-                tickDuration, tickDurationUnit);
-        ClockCallBack.addCallback(
-                callerHandle, throwable -> restorer.exceptionHappened(this, throwable),
-                executor);
+        tickTask = createTickTask();
+        schedule(0L);
         clockState = ClockState.RUNNING;
     }
 
 
+    /**
+     * Schedules the tick task with the current tick duration.
+     *
+     * @param initialDelayNanos the delay of the first tick in nanoseconds
+     */
+    private void schedule(long initialDelayNanos) {
+        long periodNanos = tickDurationUnit.toNanos(tickDuration);
+        TickRun run = new TickRun(
+                tickTask, nanoTime.getAsLong() + initialDelayNanos, periodNanos);
+        ListenableScheduledFuture<?> handle = executor.scheduleAtFixedRate(run,
+                initialDelayNanos, periodNanos, TimeUnit.NANOSECONDS);
+        currentRun = run;
+        callerHandle = handle;
+        ClockCallBack.addCallback(
+                handle, throwable -> tickTaskFailed(handle, throwable), executor);
+    }
+
+    /**
+     * Reschedules the tick task with the current tick duration.
+     *
+     * <p>The first tick of the new schedule is due when the next tick of the
+     * replaced one would have been. A tick of the replaced schedule, which
+     * has not started yet, is taken over by the new one.
+     */
+    private void reschedule() {
+        if (timestepLoop != null) {
+            timestepLoop.setTickNanos(tickDurationUnit.toNanos(tickDuration));
+        }
+        ListenableScheduledFuture<?> previous = callerHandle;
+        long next = currentRun.retire();
+        schedule(Math.max(0L, next - nanoTime.getAsLong()));
+        previous.cancel(false);
+    }
+
+    /**
+     * Reports the failure of a tick task, unless it has been replaced.
+     *
+     * @param handle the failed tick task
+     * @param throwable the cause of the failure
+     */
+    private void tickTaskFailed(ListenableScheduledFuture<?> handle, Throwable throwable) {
+        if (handle == callerHandle) {
+            restorer.exceptionHappened(this, throwable);
+        }
+    }
+
+    /**
+     * Creates the task to be run once per tick.
+     *
+     * <p>In fixed-timestep mode a fresh FixedTimestepLoop is created on every
+     * resume, so time spent paused is not caught up on. A TickEventHandler is
+     * additionally guarded against overruns.
+     *
+     * @return the task to be run once per tick
+     */
+    private Runnable createTickTask() {
+        if (maxCatchUpTicks == FIXED_RATE) {
+            timestepLoop = null;
+        } else {
+            timestepLoop = new FixedTimestepLoop(clockListener,
+                    tickDurationUnit.toNanos(tickDuration), maxCatchUpTicks, nanoTime);
+        }
+        if (overrunGuard != null) {
+            return overrunGuard;
+        }
+        return timestepLoop == null ? clockListener::ticksPassed : timestepLoop;
+    }
+
+    /**
+     * Hands ticks let through by the OverrunGuard over to the listener.
+     *
+     * <p>The FixedTimestepLoop measures the elapsed time by itself, so it
+     * catches up on coalesced ticks without being told their number.
+     *
+     * @param elapsedTicks the number of ticks to hand over in fixed-rate mode
+     */
+    private void handOver(int elapsedTicks) {
+        if (timestepLoop == null) {
+            clockListener.ticksPassed(elapsedTicks);
+        } else {
+            timestepLoop.run();
+        }
+    }
+
+    /**
+     * Forgets the time of a tick dropped by the OverrunGuard, so the
+     * FixedTimestepLoop does not catch up on it later.
+     */
+    private void dropTick() {
+        if (timestepLoop != null) {
+            timestepLoop.dropDueTicks();
+        }
+    }
+
+    /**
+     * Logs an overrun, if no other overrun handler is given.
+     *
+     * @param exception the reported overrun
+     */
+    private static void logOverrun(TicksTooFastException exception) {
+        LOGGER.warn("A tick is due before the listeners finished the previous one.",
+                exception);
+    }
+
     @Override
     public ClockState state() {
         return clockState;
     }
 
     @Override
-    public long getTickDuration(TimeUnit unit) {
+    public synchronized long getTickDuration(TimeUnit unit) {
         return unit.convert(tickDuration, tickDurationUnit);
     }
 
@@ -200,17 +526,84 @@ public class ClockImpl implements Clock {
      * @param duration the duration to set
      * @param unit the unit to set
      * @throws NullPointerException if tickEventHandler or unit is null
-     * @throws IllegalArgumentException if duration is negative
+     * @throws IllegalArgumentException if duration is not positive
      */
     private void setTickDuration0(
             long duration, TimeUnit unit) {
-        if (duration < 0) {
-            throw new IllegalArgumentException("The duration of a tick may not be negative.");
+        if (duration <= 0L) {
+            throw new IllegalArgumentException("The duration of a tick must be positive.");
         }
         tickDurationUnit = Objects.requireNonNull(unit);
         tickDuration = duration;
     }
 
+    /**
+     * Runs the tick task for one schedule, until the schedule is replaced.
+     *
+     * <p>The executor may still start an execution of a cancelled schedule.
+     * Once retired, a TickRun therefore skips its executions and tells the
+     * time of its next tick, which the replacing schedule takes over.
+     */
+    private final class TickRun implements Runnable {
+
+        /**
+         * The task to run once per tick.
+         */
+        private final Runnable task;
+
+        /**
+         * The period of this schedule in nanoseconds.
+         */
+        private final long periodNanos;
+
+        /**
+         * The time of the next tick of this schedule, guarded by this.
+         */
+        private long next;
+
+        /**
+         * Whether this schedule has been replaced, guarded by this.
+         */
+        private boolean retired;
+
+        /**
+         * Creates a new TickRun.
+         *
+         * @param task the task to run once per tick
+         * @param first the time of the first tick
+         * @param periodNanos the period of the schedule in nanoseconds
+         */
+        TickRun(Runnable task, long first, long periodNanos) {
+            this.task = task;
+            this.periodNanos = periodNanos;
+            this.next = first;
+        }
+
+        /**
+         * Retires this schedule.
+         *
+         * @return the time of the next tick, which has not started yet
+         */
+        synchronized long retire() {
+            retired = true;
+            return next;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (retired) {
+                    return;
+                }
+                next += periodNanos;
+            }
+            synchronized (tickLock) {
+                task.run();
+            }
+        }
+
+    }
+
 }
 
 /* vim:set shiftwidth=4 softtabstop=4 expandtab: */
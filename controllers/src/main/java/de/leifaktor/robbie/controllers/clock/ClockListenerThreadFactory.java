@@ -23,6 +23,8 @@
 package de.leifaktor.robbie.controllers.clock;
 
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -37,6 +39,11 @@ import java.util.concurrent.atomic.AtomicInteger;
  * where [number] means any integer decimal number and the last part
  * is obtained by calling the toString() method on the Runnable object,
  * for which a Thread shall be created.
+ *
+ * <p>Factories obtained by {@link #virtual(Thread.UncaughtExceptionHandler)}
+ * create virtual threads, if the JVM supports them. Workers of a
+ * ForkJoinPool are created by {@link #forkJoin(Thread.UncaughtExceptionHandler)};
+ * their names end in "ForkJoinWorker" instead of a Runnable.
  */
 public class ClockListenerThreadFactory implements ThreadFactory{
 
@@ -60,6 +67,11 @@ public class ClockListenerThreadFactory implements ThreadFactory{
      */
     private final Thread.UncaughtExceptionHandler handler;
 
+    /**
+     * Creates the unstarted threads before they get named.
+     */
+    private final ThreadFactory base;
+
     /**
      * Creates a new ClockListenerThreadFactory.
      *
@@ -82,10 +94,64 @@ public class ClockListenerThreadFactory implements ThreadFactory{
      */
     protected ClockListenerThreadFactory(
             Thread.UncaughtExceptionHandler handler, int instanceCount) {
+        this(handler, instanceCount, Thread::new);
+    }
+
+    /**
+     * Creates a new ClockListenerThreadFactory naming the threads of base.
+     *
+     * @param handler the UncaughtExceptionHandler to attach to the threads
+     * @param instanceCount the instance number
+     * @param base the factory creating the unstarted threads
+     * @throws NullPointerException if handler is null
+     */
+    private ClockListenerThreadFactory(Thread.UncaughtExceptionHandler handler,
+            int instanceCount, ThreadFactory base) {
         this.handler = Objects.requireNonNull(handler);
+        this.base = base;
         currentInstance = instanceCount;
     }
 
+    /**
+     * Creates a new ClockListenerThreadFactory creating virtual threads.
+     *
+     * <p>If the JVM does not support virtual threads, the returned factory
+     * creates platform threads like the public constructor does. In both
+     * cases the threads are named and get handler attached as described in
+     * the class doc.
+     *
+     * @param handler the UncaughtExceptionHandler to attach to the threads
+     * @return a new ClockListenerThreadFactory
+     * @throws NullPointerException if handler is null
+     */
+    public static ClockListenerThreadFactory virtual(Thread.UncaughtExceptionHandler handler) {
+        return new ClockListenerThreadFactory(
+                handler, instanceCount.getAndIncrement(), VirtualThreads.threadFactory());
+    }
+
+    /**
+     * Creates a ForkJoinWorkerThreadFactory for ClockListener workers.
+     *
+     * <p>The workers are daemon threads named as described in the class doc
+     * and get handler attached.
+     *
+     * @param handler the UncaughtExceptionHandler to attach to the workers
+     * @return a new ForkJoinWorkerThreadFactory
+     * @throws NullPointerException if handler is null
+     */
+    public static ForkJoinPool.ForkJoinWorkerThreadFactory forkJoin(
+            Thread.UncaughtExceptionHandler handler) {
+        ClockListenerThreadFactory names = new ClockListenerThreadFactory(handler);
+        return pool -> {
+            ForkJoinWorkerThread thread =
+                    ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(names.makeName("ForkJoinWorker"));
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler(handler);
+            return thread;
+        };
+    }
+
     /**
      * Creates a new daemon Thread with a unique name
      * and the UncaughtExceptionHandler set when instantiating this class.
@@ -97,7 +163,7 @@ public class ClockListenerThreadFactory implements ThreadFactory{
      */
     @Override
     public Thread newThread(Runnable task) {
-        Thread thread = new Thread(Objects.requireNonNull(task));
+        Thread thread = base.newThread(Objects.requireNonNull(task));
         thread.setName(makeName(task));
         thread.setDaemon(true);
         thread.setUncaughtExceptionHandler(handler);
@@ -107,12 +173,13 @@ public class ClockListenerThreadFactory implements ThreadFactory{
     /**
      * Creates a name according to the class doc.
      *
-     * @param runnable the task being attached to a Thread
+     * @param runnable the task being attached to a Thread, or what stands
+     *        for it
      * @return a String according to the class doc
      * @throws NullPointerException if runnable is null
      * @see ClockListenerThreadFactory
      */
-    private String makeName(Runnable runnable) {
+    private String makeName(Object runnable) {
         return String.format("ClockListenerThread-%1$d-%2$d-%3$s",
                 currentInstance, threadCount.getAndIncrement(), runnable);
     }
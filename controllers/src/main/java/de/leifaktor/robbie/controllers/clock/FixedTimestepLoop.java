@@ -0,0 +1,169 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * A tick task advancing a ClockListener in fixed timesteps.
+ *
+ * <p>Instead of trusting the executor to call it exactly once per tick, the
+ * loop accumulates the real time passed according to {@link System#nanoTime()}
+ * and hands the number of whole ticks contained in it to
+ * {@link ClockListener#ticksPassed(int)}. The remainder is carried over to
+ * the next call, so late executions do not make the simulation drift.
+ *
+ * <p>At most {@code maxCatchUpTicks} ticks are handed over per call. If more
+ * are due the surplus is dropped, so an overloaded clock slows the simulation
+ * down instead of spiraling into ever longer catch-up bursts.
+ *
+ * <p>Instances are not thread-safe; they are meant to be run by a single
+ * periodic task at a time. Only {@link #setTickNanos(long)} may be called
+ * concurrently with {@link #run()}.
+ */
+final class FixedTimestepLoop implements Runnable {
+
+    /**
+     * The listener to advance.
+     */
+    private final ClockListener clockListener;
+
+    /**
+     * The length of a tick in nanoseconds.
+     */
+    private volatile long tickNanos;
+
+    /**
+     * The maximum number of ticks handed over in one call.
+     */
+    private final int maxCatchUpTicks;
+
+    /**
+     * The source of the current time in nanoseconds.
+     */
+    private final LongSupplier nanoTime;
+
+    /**
+     * The time of the previous call.
+     */
+    private long previous;
+
+    /**
+     * The time passed but not yet handed over as ticks.
+     */
+    private long accumulator;
+
+    /**
+     * Creates a new FixedTimestepLoop starting now.
+     *
+     * <p>The first call hands over one tick, just like a fixed-rate schedule
+     * with no initial delay would.
+     *
+     * @param clockListener the listener to advance
+     * @param tickNanos the length of a tick in nanoseconds
+     * @param maxCatchUpTicks the maximum number of ticks handed over per call
+     * @throws NullPointerException if clockListener is null
+     * @throws IllegalArgumentException if tickNanos or maxCatchUpTicks is not positive
+     */
+    FixedTimestepLoop(ClockListener clockListener, long tickNanos, int maxCatchUpTicks) {
+        this(clockListener, tickNanos, maxCatchUpTicks, System::nanoTime);
+    }
+
+    /**
+     * Creates a new FixedTimestepLoop reading time from nanoTime.
+     *
+     * @param clockListener the listener to advance
+     * @param tickNanos the length of a tick in nanoseconds
+     * @param maxCatchUpTicks the maximum number of ticks handed over per call
+     * @param nanoTime the source of the current time in nanoseconds
+     * @throws NullPointerException if clockListener or nanoTime is null
+     * @throws IllegalArgumentException if tickNanos or maxCatchUpTicks is not positive
+     */
+    FixedTimestepLoop(ClockListener clockListener, long tickNanos, int maxCatchUpTicks,
+            LongSupplier nanoTime) {
+        setTickNanos(tickNanos);
+        if (maxCatchUpTicks <= 0) {
+            throw new IllegalArgumentException("maxCatchUpTicks must be positive.");
+        }
+        this.clockListener = Objects.requireNonNull(clockListener);
+        this.nanoTime = Objects.requireNonNull(nanoTime);
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        previous = nanoTime.getAsLong();
+        accumulator = tickNanos;
+    }
+
+    /**
+     * Changes the length of a tick.
+     *
+     * <p>The time accumulated so far is kept, so a partial tick counts
+     * towards the first tick of the new length.
+     *
+     * @param tickNanos the new length of a tick in nanoseconds
+     * @throws IllegalArgumentException if tickNanos is not positive
+     */
+    void setTickNanos(long tickNanos) {
+        if (tickNanos <= 0L) {
+            throw new IllegalArgumentException("The duration of a tick must be positive.");
+        }
+        this.tickNanos = tickNanos;
+    }
+
+    /**
+     * Drops the whole ticks passed since the previous call without handing
+     * them over.
+     *
+     * <p>A partial tick is kept, just like after a regular call.
+     */
+    void dropDueTicks() {
+        long now = nanoTime.getAsLong();
+        accumulator = (accumulator + now - previous) % tickNanos;
+        previous = now;
+    }
+
+    @Override
+    public void run() {
+        long period = tickNanos;
+        long now = nanoTime.getAsLong();
+        accumulator += now - previous;
+        previous = now;
+        long due = accumulator / period;
+        if (due == 0L) {
+            return;
+        }
+        int steps;
+        if (due > maxCatchUpTicks) {
+            steps = maxCatchUpTicks;
+            accumulator %= period;
+        } else {
+            steps = (int) due;
+            accumulator -= due * period;
+        }
+        clockListener.ticksPassed(steps);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
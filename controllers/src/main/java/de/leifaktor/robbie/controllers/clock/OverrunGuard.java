@@ -0,0 +1,168 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.TicksTooFastException;
+
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A tick task detecting overruns before handing a tick over.
+ *
+ * <p>Before every tick the guard asks whether the work started by the
+ * previous tick is done. If not, the tick overruns: it is handled according
+ * to the {@link OverrunPolicy} and a {@link TicksTooFastException} is
+ * reported. Only the first overrun of a streak is reported, so the reporter
+ * is not flooded while the clock degrades.
+ *
+ * <p>Every tick neither handed over nor kept for later is signalled as
+ * dropped, so a task measuring elapsed time can forget it as well.
+ *
+ * <p>Instances are not thread-safe; they are meant to be run by a single
+ * periodic task at a time.
+ */
+final class OverrunGuard implements Runnable {
+
+    /**
+     * The largest number of ticks SLOW_DOWN lets pass between listener runs.
+     */
+    static final int MAX_STRIDE = 64;
+
+    /**
+     * Tells whether the work of the previous tick is done.
+     */
+    private final BooleanSupplier done;
+
+    /**
+     * How overrunning ticks are handled.
+     */
+    private final OverrunPolicy policy;
+
+    /**
+     * Hands the given number of ticks over to the listener.
+     */
+    private final IntConsumer ticks;
+
+    /**
+     * Gets told about every dropped tick.
+     */
+    private final Runnable dropped;
+
+    /**
+     * Reports overruns.
+     */
+    private final Consumer<? super TicksTooFastException> reporter;
+
+    /**
+     * The ticks dropped by COALESCE, not yet handed over.
+     */
+    private int coalesced;
+
+    /**
+     * The number of ticks between listener runs with SLOW_DOWN.
+     */
+    private int stride = 1;
+
+    /**
+     * The ticks passed since the last listener run with SLOW_DOWN.
+     */
+    private int sinceLastRun;
+
+    /**
+     * Whether the previous tick overran.
+     */
+    private boolean overrunning;
+
+    /**
+     * Creates a new OverrunGuard.
+     *
+     * @param done tells whether the work of the previous tick is done
+     * @param policy how overrunning ticks are handled
+     * @param ticks hands the given number of ticks over to the listener
+     * @param dropped gets told about every dropped tick
+     * @param reporter reports overruns
+     * @throws NullPointerException if any argument is null
+     */
+    OverrunGuard(BooleanSupplier done, OverrunPolicy policy, IntConsumer ticks,
+            Runnable dropped, Consumer<? super TicksTooFastException> reporter) {
+        this.done = Objects.requireNonNull(done);
+        this.policy = Objects.requireNonNull(policy);
+        this.ticks = Objects.requireNonNull(ticks);
+        this.dropped = Objects.requireNonNull(dropped);
+        this.reporter = Objects.requireNonNull(reporter);
+    }
+
+    @Override
+    public void run() {
+        if (policy == OverrunPolicy.SLOW_DOWN && ++sinceLastRun < stride) {
+            dropped.run();
+            return;
+        }
+        sinceLastRun = 0;
+        if (!done.getAsBoolean()) {
+            overrun();
+            return;
+        }
+        overrunning = false;
+        if (stride > 1) {
+            stride--;
+        }
+        int due = coalesced + 1;
+        coalesced = 0;
+        ticks.accept(due);
+    }
+
+    /**
+     * Handles an overrunning tick.
+     */
+    private void overrun() {
+        if (policy == OverrunPolicy.COALESCE) {
+            coalesced++;
+        } else {
+            if (policy == OverrunPolicy.SLOW_DOWN) {
+                stride = Math.min(stride * 2, MAX_STRIDE);
+            }
+            dropped.run();
+        }
+        if (!overrunning) {
+            overrunning = true;
+            reporter.accept(new TicksTooFastException(
+                    "The listeners of the previous tick are still running."));
+        }
+    }
+
+    /**
+     * Returns the number of ticks between listener runs.
+     *
+     * @return the current stride; 1 unless slowed down
+     */
+    int getStride() {
+        return stride;
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
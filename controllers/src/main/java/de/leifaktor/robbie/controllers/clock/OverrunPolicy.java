@@ -0,0 +1,56 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+/**
+ * Describes what a clock does, when the listener work of the previous tick
+ * has not completed by the time the next tick is due.
+ *
+ * <p>Regardless of the policy the overrun is reported as a
+ * {@link de.leifaktor.robbie.api.controllers.clock.TicksTooFastException}.
+ *
+ * @see OverrunGuard
+ */
+public enum OverrunPolicy {
+
+    /**
+     * Drops the overrunning tick; the simulation loses it.
+     */
+    SKIP,
+
+    /**
+     * Drops the overrunning tick, but hands it over together with the next
+     * tick that runs, so no simulation time is lost.
+     */
+    COALESCE,
+
+    /**
+     * Drops the overrunning tick and doubles the number of ticks between
+     * two listener runs. Every tick finishing in time decreases that number
+     * by one again, until the clock is back at its configured rate.
+     */
+    SLOW_DOWN
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
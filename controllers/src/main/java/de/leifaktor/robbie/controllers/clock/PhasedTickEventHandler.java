@@ -0,0 +1,236 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Notifies the clock listeners in ordered phases.
+ *
+ * <p>The listeners are grouped into phases, e.g. input, movement, collision
+ * and cleanup. Every tick the phases run one after another; the listeners
+ * within a phase run in parallel on the ExecutorService. A phase starts only
+ * after every listener of the previous phase has returned.
+ *
+ * <p>The barrier between two phases is a countdown of the listeners still
+ * running: the last listener of a phase to finish starts the next phase on
+ * its own thread. So no thread ever blocks waiting for a phase, and even a
+ * single-threaded ExecutorService runs all phases.
+ *
+ * <p>Listeners are run by {@link ExecutorService#execute(Runnable)}, so
+ * exceptions they throw reach the UncaughtExceptionHandler of the executing
+ * thread, e.g. the one set by {@link ClockListenerThreadFactory}. The tick
+ * carries on with the remaining listeners nonetheless.
+ *
+ * <p>{@link de.leifaktor.robbie.api.controllers.clock.InlineClockListener}s
+ * are run on the ExecutorService like any other listener.
+ */
+public class PhasedTickEventHandler implements TickEventHandler {
+
+    /**
+     * The ExecutorService which runs the listeners.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * The tasks calling the listeners, per phase in order.
+     */
+    private final ListenerTask[][] phases;
+
+    /**
+     * The number of listeners of the current phase still running.
+     */
+    private final AtomicInteger remaining = new AtomicInteger();
+
+    /**
+     * The number of ticks handed to the listeners in the current tick.
+     */
+    private volatile int elapsedTicks;
+
+    /**
+     * Whether all phases of the previous tick have finished.
+     */
+    private volatile boolean done = true;
+
+    /**
+     * Calls one listener and starts the next phase, if it was the last of
+     * its phase.
+     */
+    private final class ListenerTask implements Runnable {
+
+        /**
+         * The listener to call.
+         */
+        private final ClockListener listener;
+
+        /**
+         * The index of the phase of listener.
+         */
+        private final int phase;
+
+        /**
+         * Creates a new ListenerTask.
+         *
+         * @param listener the listener to call
+         * @param phase the index of the phase of listener
+         */
+        ListenerTask(ClockListener listener, int phase) {
+            this.listener = Objects.requireNonNull(listener);
+            this.phase = phase;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int ticks = elapsedTicks;
+                if (ticks == 1) {
+                    listener.ticksPassed();
+                } else {
+                    listener.ticksPassed(ticks);
+                }
+            } finally {
+                if (remaining.decrementAndGet() == 0) {
+                    startPhase(phase + 1);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return listener.toString();
+        }
+
+    }
+
+    /**
+     * Creates a new PhasedTickEventHandler.
+     *
+     * @param executorService executorService to run the ClockListeners.
+     *        It may be shutdown during execution.
+     * @param phases the ClockListeners to be called, per phase in order
+     * @throws NullPointerException if any argument or listener is null
+     */
+    public PhasedTickEventHandler(ExecutorService executorService,
+            List<? extends Collection<? extends ClockListener>> phases) {
+        this.executorService = Objects.requireNonNull(executorService);
+        this.phases = new ListenerTask[phases.size()][];
+        for (int i = 0; i < this.phases.length; i++) {
+            int index = i;
+            this.phases[i] = phases.get(i).stream()
+                    .map(listener -> new ListenerTask(listener, index))
+                    .toArray(ListenerTask[]::new);
+        }
+    }
+
+    @Override
+    public void run() {
+        ticksPassed(1);
+    }
+
+    /**
+     * Runs all phases once, handing elapsedTicks over to every listener.
+     *
+     * @param elapsedTicks the number of ticks passed, always positive
+     * @throws IllegalStateException if the previous tick is not done yet
+     */
+    @Override
+    public void ticksPassed(int elapsedTicks) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        if (!done) {
+            throw new IllegalStateException("The previous tick is still running.");
+        }
+        done = false;
+        this.elapsedTicks = elapsedTicks;
+        startPhase(0);
+    }
+
+    /**
+     * Starts the first non-empty phase from index on, or finishes the tick
+     * if there is none.
+     *
+     * <p>If the ExecutorService rejects a listener, the listeners not
+     * submitted are taken off the countdown, so the tick finishes with the
+     * ones already running.
+     *
+     * @param index the index of the phase to start
+     * @throws RejectedExecutionException if the ExecutorService rejects a task
+     */
+    private void startPhase(int index) {
+        int next = index;
+        while (next < phases.length && phases[next].length == 0) {
+            next++;
+        }
+        if (next == phases.length) {
+            done = true;
+            return;
+        }
+        ListenerTask[] phase = phases[next];
+        remaining.set(phase.length);
+        for (int i = 0; i < phase.length; i++) {
+            try {
+                executorService.execute(phase[i]);
+            } catch (RejectedExecutionException e) {
+                if (remaining.addAndGet(i - phase.length) == 0) {
+                    done = true;
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public boolean shutdown(long timeOutDuration, TimeUnit timeOutUnit)
+                throws TimeoutException, InterruptedException {
+        executorService.shutdown();
+        boolean correctTerminated = false;
+        try {
+            if (executorService.awaitTermination(timeOutDuration, timeOutUnit)) {
+                correctTerminated = true;
+            } else {
+                throw new TimeoutException("Tasks did not terminate in time.");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        return correctTerminated;
+    }
+
+    @Override
+    public boolean areDone() {
+        return done;
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
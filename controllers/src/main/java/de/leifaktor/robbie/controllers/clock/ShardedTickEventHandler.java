@@ -0,0 +1,270 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Notifies the clock listeners through a work-stealing ForkJoinPool.
+ *
+ * <p>Submitting every listener to a shared executor queue makes all of them
+ * contend for the queue at the start of a tick. This handler submits a
+ * single root task per tick instead. The worker running it splits the
+ * listeners into shards, about {@link #SHARDS_PER_WORKER} per worker of the
+ * pool, pushing them onto its own deque, from which idle workers steal.
+ * So a tick costs one shared submission, and the shards spread over the
+ * cores by stealing.
+ *
+ * <p>Exceptions and errors thrown by listeners are handed to the
+ * UncaughtExceptionHandler of the executing worker; the remaining listeners
+ * run nonetheless, and the tick is done only after every shard finished.
+ * Pools created by the constructors taking a handler name their workers
+ * like a {@link ClockListenerThreadFactory} and attach the handler.
+ *
+ * <p>{@link de.leifaktor.robbie.api.controllers.clock.InlineClockListener}s
+ * are run in the pool like any other listener.
+ */
+public class ShardedTickEventHandler implements TickEventHandler {
+
+    /**
+     * The number of shards created per worker of the pool.
+     */
+    static final int SHARDS_PER_WORKER = 4;
+
+    /**
+     * The pool running the listeners.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The listeners to notify.
+     */
+    private final ClockListener[] listeners;
+
+    /**
+     * The largest number of listeners called by one shard.
+     */
+    private final int shardSize;
+
+    /**
+     * The number of ticks, which have not yet finished.
+     */
+    private final AtomicInteger pendingTicks = new AtomicInteger();
+
+    /**
+     * Calls a range of listeners, forking off halves while it is too large.
+     */
+    private final class Shard extends CountedCompleter<Void> {
+
+        /**
+         * Needed for possible serialization.
+         */
+        private static final long serialVersionUID = 0x5a3c9e0f41d7b26eL;
+
+        /**
+         * The number of ticks to hand over.
+         */
+        private final int elapsedTicks;
+
+        /**
+         * The index of the first listener of this shard.
+         */
+        private final int from;
+
+        /**
+         * The index after the last listener of this shard.
+         */
+        private final int to;
+
+        /**
+         * Creates a new Shard.
+         *
+         * @param parent the shard which forked this one, or null for the root
+         * @param elapsedTicks the number of ticks to hand over
+         * @param from the index of the first listener
+         * @param to the index after the last listener
+         */
+        Shard(Shard parent, int elapsedTicks, int from, int to) {
+            super(parent);
+            this.elapsedTicks = elapsedTicks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void compute() {
+            int end = to;
+            while (end - from > shardSize) {
+                int mid = (from + end) >>> 1;
+                addToPendingCount(1);
+                new Shard(this, elapsedTicks, mid, end).fork();
+                end = mid;
+            }
+            for (int i = from; i < end; i++) {
+                call(listeners[i]);
+            }
+            tryComplete();
+        }
+
+        /**
+         * Calls listener, reporting anything it throws to the current
+         * thread's UncaughtExceptionHandler.
+         *
+         * <p>Nothing escapes, so no shard completes exceptionally and the
+         * root completes only after all shards.
+         *
+         * @param listener the listener to call
+         */
+        private void call(ClockListener listener) {
+            try {
+                if (elapsedTicks == 1) {
+                    listener.ticksPassed();
+                } else {
+                    listener.ticksPassed(elapsedTicks);
+                }
+            } catch (Throwable e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> caller) {
+            if (getCompleter() == null) {
+                pendingTicks.decrementAndGet();
+            }
+        }
+
+    }
+
+    /**
+     * Creates a new ShardedTickEventHandler on a new pool of parallelism
+     * workers named like those of a {@link ClockListenerThreadFactory}.
+     *
+     * @param parallelism the number of workers of the pool
+     * @param handler the UncaughtExceptionHandler of the workers
+     * @param listeners the ClockListeners to be called
+     * @throws NullPointerException if handler, listeners or a listener is null
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public ShardedTickEventHandler(int parallelism, Thread.UncaughtExceptionHandler handler,
+            Collection<? extends ClockListener> listeners) {
+        this(parallelism, ClockListenerThreadFactory.forkJoin(handler), handler, listeners);
+    }
+
+    /**
+     * Creates a new ShardedTickEventHandler on a new pool of parallelism
+     * workers created by factory.
+     *
+     * @param parallelism the number of workers of the pool
+     * @param factory the factory creating the workers, e.g.
+     *        {@link ClockListenerThreadFactory#forkJoin(Thread.UncaughtExceptionHandler)}
+     * @param handler the UncaughtExceptionHandler of the workers
+     * @param listeners the ClockListeners to be called
+     * @throws NullPointerException if any argument or a listener is null
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public ShardedTickEventHandler(int parallelism,
+            ForkJoinPool.ForkJoinWorkerThreadFactory factory,
+            Thread.UncaughtExceptionHandler handler,
+            Collection<? extends ClockListener> listeners) {
+        this(new ForkJoinPool(parallelism, factory, Objects.requireNonNull(handler), false),
+                listeners);
+    }
+
+    /**
+     * Creates a new ShardedTickEventHandler.
+     *
+     * @param pool the ForkJoinPool to run the ClockListeners.
+     *        It may be shutdown during execution.
+     * @param listeners the ClockListeners to be called
+     * @throws NullPointerException if pool, listeners or a listener is null
+     */
+    public ShardedTickEventHandler(ForkJoinPool pool,
+            Collection<? extends ClockListener> listeners) {
+        this.pool = Objects.requireNonNull(pool);
+        this.listeners = listeners.toArray(new ClockListener[0]);
+        for (ClockListener listener : this.listeners) {
+            Objects.requireNonNull(listener);
+        }
+        int shards = pool.getParallelism() * SHARDS_PER_WORKER;
+        shardSize = Math.max(1, (this.listeners.length + shards - 1) / shards);
+    }
+
+    @Override
+    public void run() {
+        ticksPassed(1);
+    }
+
+    /**
+     * Runs the listeners once, handing all elapsedTicks over to each of them.
+     *
+     * @param elapsedTicks the number of ticks passed, always positive
+     */
+    @Override
+    public void ticksPassed(int elapsedTicks) {
+        if (Thread.currentThread().isInterrupted() || listeners.length == 0) {
+            return;
+        }
+        pendingTicks.incrementAndGet();
+        try {
+            pool.execute(new Shard(null, elapsedTicks, 0, listeners.length));
+        } catch (RuntimeException e) {
+            pendingTicks.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean shutdown(long timeOutDuration, TimeUnit timeOutUnit)
+                throws TimeoutException, InterruptedException {
+        pool.shutdown();
+        boolean correctTerminated = false;
+        try {
+            if (pool.awaitTermination(timeOutDuration, timeOutUnit)) {
+                correctTerminated = true;
+            } else {
+                throw new TimeoutException("Tasks did not terminate in time.");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return correctTerminated;
+    }
+
+    @Override
+    public boolean areDone() {
+        return pendingTicks.get() == 0;
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -22,13 +22,27 @@
 
 package de.leifaktor.robbie.controllers.clock;
 
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
  * This defines how tickEvents should be handled.
+ *
+ * <p>A TickEventHandler is a ClockListener itself, so it can be handed to a
+ * clock directly. {@link ClockImpl} then consults {@link #areDone()} before
+ * every tick to detect overruns.
  */
-public interface TickEventHandler {
+public interface TickEventHandler extends ClockListener {
+
+    /**
+     * Runs the listeners by calling {@link #run()}.
+     */
+    @Override
+    default void ticksPassed() {
+        run();
+    }
 
     /**
      * Runs the listeners if the current thread is not interrupted,
@@ -25,6 +25,7 @@ package de.leifaktor.robbie.controllers.clock;
 import de.leifaktor.robbie.api.controllers.clock.ClockListener;
 
 import java.util.Collection;
+import java.util.Objects;
 
 /**
  * The interface for creating TickEventHandlers.
@@ -39,6 +40,38 @@ public interface TickEventHandlerFactory {
      */
     TickEventHandler create(Collection<? extends ClockListener> listeners);
 
+    /**
+     * Returns a factory running every listener invocation in its own virtual
+     * thread.
+     *
+     * <p>Listeners blocking on I/O then only park their virtual thread instead
+     * of occupying a thread of a fixed pool. The threads are named by a
+     * {@link ClockListenerThreadFactory} and get handler attached. On JVMs
+     * without virtual threads, platform threads of an unbounded cached pool
+     * are used instead, see {@link #virtualThreadsAvailable()}.
+     *
+     * @param handler the UncaughtExceptionHandler to attach to the threads
+     * @return a factory for TickEventHandlers running on virtual threads
+     * @throws NullPointerException if handler is null
+     */
+    static TickEventHandlerFactory virtualThreads(Thread.UncaughtExceptionHandler handler) {
+        Objects.requireNonNull(handler);
+        return listeners -> new TickEventHandlerImpl(
+                VirtualThreads.newThreadPerTaskExecutor(
+                        ClockListenerThreadFactory.virtual(handler)), listeners);
+    }
+
+    /**
+     * Returns whether the running JVM supports virtual threads.
+     *
+     * @return true if {@link #virtualThreads(Thread.UncaughtExceptionHandler)}
+     *         runs the listeners on virtual threads, false if it falls back to
+     *         platform threads
+     */
+    static boolean virtualThreadsAvailable() {
+        return VirtualThreads.isAvailable();
+    }
+
 }
 
 /* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -23,28 +23,49 @@
 package de.leifaktor.robbie.controllers.clock;
 
 import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+import de.leifaktor.robbie.api.controllers.clock.InlineClockListener;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Notifies the clock listeners.
+ *
+ * <p>{@link InlineClockListener}s are called directly on the thread running
+ * the tick, after all other listeners have been handed to the
+ * ExecutorService. Their RuntimeExceptions are handed to the
+ * UncaughtExceptionHandler of that thread, just as those of the other
+ * listeners, so a failing inline listener does not stop the clock.
+ *
+ * <p>Dispatching a tick allocates nothing: the tasks calling the listeners
+ * are created once, handed over by {@link ExecutorService#execute(Runnable)}
+ * and counted on a single counter of pending tasks, which {@link #areDone()}
+ * reads. Every task keeps the number of ticks due to its listener. A tick
+ * arriving while the task is still queued or running is added to these and
+ * handed over by the same task, so a listener gets every tick exactly once
+ * and never runs concurrently with itself.
+ *
+ * <p>Exceptions thrown by those listeners reach the UncaughtExceptionHandler
+ * of the executing thread, e.g. the one set by
+ * {@link ClockListenerThreadFactory}, after the task handed over all ticks
+ * due.
  */
 public class TickEventHandlerImpl implements TickEventHandler {
 
     /**
-     * The tasks to run on tick.
+     * The tasks calling the listeners run by the ExecutorService.
      */
-    private final Set<Runnable> listenerTasks;
+    private final ListenerTask[] listenerTasks;
+
+    /**
+     * The ClockListeners to call on the tick thread.
+     */
+    private final ClockListener[] inlineListeners;
 
     /**
      * The ExecutorService which runs the listeners.
@@ -52,9 +73,100 @@ public class TickEventHandlerImpl implements TickEventHandler {
     private final ExecutorService executorService;
 
     /**
-     * The currently running or if none previous ran tasks.
+     * The number of handed over listener tasks, which have not yet finished.
      */
-    private List<Future<?>> runningTasks = Collections.emptyList();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Calls one listener until no ticks are due to it and counts it as done
+     * afterwards.
+     */
+    private final class ListenerTask implements Runnable {
+
+        /**
+         * The listener to call.
+         */
+        private final ClockListener listener;
+
+        /**
+         * The number of ticks not yet handed to the listener; positive while
+         * the task is pending.
+         */
+        private final AtomicInteger due = new AtomicInteger();
+
+        /**
+         * Creates a new ListenerTask.
+         *
+         * @param listener the listener to call
+         */
+        ListenerTask(ClockListener listener) {
+            this.listener = Objects.requireNonNull(listener);
+        }
+
+        /**
+         * Adds elapsedTicks to the ticks due and hands the task over to the
+         * ExecutorService, unless it is pending already.
+         *
+         * @param elapsedTicks the number of ticks passed, always positive
+         * @throws RejectedExecutionException if the ExecutorService rejects
+         *         the task
+         */
+        void dispatch(int elapsedTicks) {
+            if (due.getAndAdd(elapsedTicks) != 0) {
+                return;
+            }
+            pending.incrementAndGet();
+            try {
+                executorService.execute(this);
+            } catch (RejectedExecutionException e) {
+                due.set(0);
+                pending.decrementAndGet();
+                throw e;
+            }
+        }
+
+        /**
+         * Hands the ticks due over to the listener, until no more are due.
+         *
+         * <p>Exceptions of the listener are rethrown after that, with later
+         * ones suppressed.
+         */
+        @Override
+        public void run() {
+            Throwable failure = null;
+            int left;
+            do {
+                int ticks = due.get();
+                try {
+                    if (ticks == 1) {
+                        listener.ticksPassed();
+                    } else {
+                        listener.ticksPassed(ticks);
+                    }
+                } catch (RuntimeException | Error e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+                left = due.addAndGet(-ticks);
+            } while (left != 0);
+            pending.decrementAndGet();
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return listener.toString();
+        }
+
+    }
 
     /**
      * Creates a new TickEventHandler.
@@ -65,25 +177,67 @@ public class TickEventHandlerImpl implements TickEventHandler {
     public TickEventHandlerImpl(ExecutorService executorService,
             Collection<? extends ClockListener> listeners) {
         this.executorService = Objects.requireNonNull(executorService);
-        listenerTasks = listeners.stream().map(this::convert).collect(Collectors.toSet());
+        listenerTasks = listeners.stream()
+                .filter(cl -> !(cl instanceof InlineClockListener))
+                .map(ListenerTask::new)
+                .toArray(ListenerTask[]::new);
+        inlineListeners = listeners.stream()
+                .filter(InlineClockListener.class::isInstance)
+                .toArray(ClockListener[]::new);
+    }
+
+    @Override
+    public void run() {
+        ticksPassed(1);
     }
 
     /**
-     * Converts a ClockListener to a Runnable.
+     * Runs the listeners once, handing all elapsedTicks over to each of them.
      *
-     * @param cl the clockListener to convert
-     * @return the converted Runnable
+     * @param elapsedTicks the number of ticks passed, always positive
      */
-    private Runnable convert(ClockListener cl) {
-        return cl::ticksPassed;
+    @Override
+    public void ticksPassed(int elapsedTicks) {
+        if (!Thread.currentThread().isInterrupted()) {
+            dispatch(elapsedTicks);
+            runInline(elapsedTicks);
+        }
     }
 
+    /**
+     * Hands elapsedTicks to all listener tasks.
+     *
+     * @param elapsedTicks the number of ticks passed, always positive
+     * @throws RejectedExecutionException if the ExecutorService rejects a task
+     */
+    private void dispatch(int elapsedTicks) {
+        for (ListenerTask task : listenerTasks) {
+            task.dispatch(elapsedTicks);
+        }
+    }
 
-    @Override
-    public void run() {
-        if (!Thread.currentThread().isInterrupted()) {
-            runningTasks = new ArrayList<>(listenerTasks.size());
-            listenerTasks.stream().forEach(this::runListener);
+    /**
+     * Calls the inline listeners on the current thread.
+     *
+     * <p>A RuntimeException thrown by one listener is handed to the
+     * UncaughtExceptionHandler of the current thread and does not keep the
+     * others from running. Rethrowing it would cancel the periodic task of
+     * the clock.
+     *
+     * @param elapsedTicks the number of ticks passed, always positive
+     */
+    private void runInline(int elapsedTicks) {
+        for (ClockListener listener : inlineListeners) {
+            try {
+                if (elapsedTicks == 1) {
+                    listener.ticksPassed();
+                } else {
+                    listener.ticksPassed(elapsedTicks);
+                }
+            } catch (RuntimeException e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
         }
     }
 
@@ -100,23 +254,13 @@ public class TickEventHandlerImpl implements TickEventHandler {
             }
         } finally {
             executorService.shutdownNow();
-            runningTasks = null;
         }
         return correctTerminated;
     }
 
-    /**
-     * Actually calls the listeners.
-     * @param listener the Runnable-wrapped listener to call
-     */
-    private void runListener(Runnable listener) {
-        Future<?> future = executorService.submit(listener);
-        runningTasks.add(future);
-    }
-
     @Override
     public boolean areDone() {
-        return runningTasks.stream().allMatch(Future::isDone);
+        return pending.get() == 0;
     }
 
 }
@@ -0,0 +1,124 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Gives access to virtual threads, if the running JVM supports them.
+ *
+ * <p>Virtual threads were added in Java 21. Since this project compiles
+ * against older versions, they are looked up reflectively. On older JVMs
+ * platform threads are used instead.
+ */
+final class VirtualThreads {
+
+    /**
+     * Creates unstarted virtual threads, or null if they are not available.
+     */
+    private static final ThreadFactory FACTORY = lookupFactory();
+
+    /**
+     * Executors.newThreadPerTaskExecutor(ThreadFactory), or null if not available.
+     */
+    private static final Method PER_TASK_EXECUTOR = lookupPerTaskExecutor();
+
+    /**
+     * Prevents instantiation.
+     */
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns a factory for virtual threads, if the JVM supports them.
+     *
+     * @return the result of Thread.ofVirtual().factory() or null
+     */
+    private static ThreadFactory lookupFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns Executors.newThreadPerTaskExecutor, if the JVM has it.
+     *
+     * @return the method or null
+     */
+    private static Method lookupPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the running JVM supports virtual threads.
+     *
+     * @return true if virtual threads are used, false if platform threads are
+     */
+    static boolean isAvailable() {
+        return FACTORY != null;
+    }
+
+    /**
+     * Returns a ThreadFactory creating virtual threads, or platform threads
+     * if virtual threads are not available.
+     *
+     * @return a ThreadFactory for unstarted threads
+     */
+    static ThreadFactory threadFactory() {
+        return FACTORY != null ? FACTORY : Thread::new;
+    }
+
+    /**
+     * Creates an ExecutorService running every task in a new thread of factory.
+     *
+     * <p>Without Executors.newThreadPerTaskExecutor an unbounded cached
+     * thread pool is used instead.
+     *
+     * @param factory the factory creating the threads
+     * @return a new ExecutorService
+     */
+    static ExecutorService newThreadPerTaskExecutor(ThreadFactory factory) {
+        if (PER_TASK_EXECUTOR != null) {
+            try {
+                return (ExecutorService) PER_TASK_EXECUTOR.invoke(null, factory);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create the executor.", e);
+            }
+        }
+        return Executors.newCachedThreadPool(factory);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,205 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandler;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A skeleton for limit based implementations of CollisionDetector.
+ *
+ * <p>Subclasses detect a collision between two Collideables if the
+ * euclidean distance of their positions is smaller than the limit set on
+ * construction. The limit is squared once on construction and compared
+ * to the values returned by {@link
+ * de.leifaktor.robbie.api.controllers.collision.DoublePosition#squaredDistanceTo(
+ * de.leifaktor.robbie.api.controllers.collision.DoublePosition)},
+ * so detecting a collision never needs a square root. With
+ * {@link LimitMode#SQUARED_DISTANCE} the limit is compared to the squared
+ * distances as it is. The deprecated constructors without a LimitMode
+ * keep doing so, since limits were compared to squared distances before.
+ * Subclasses only differ in how they find the candidates worth checking.
+ *
+ * <p>Which pairs are reported is determined by the {@link PairMode}.
+ *
+ * <p>Collisions for {@link
+ * de.leifaktor.robbie.api.controllers.collision.BatchCollisionHandler}s are
+ * grouped by handler and passed after all collisions of a detection have
+ * been found. The contacts of {@link
+ * de.leifaktor.robbie.api.controllers.collision.ContactHandler}s are
+ * tracked across detections, so they are told when a contact begins,
+ * persists and ends. All other CollisionHandlers are called as soon as
+ * the collision is found.
+ */
+public abstract class AbstractCollisionDetector implements CollisionDetector {
+
+    /**
+     * The squared distance under which a collision is detected.
+     */
+    protected final double squaredLimit;
+
+    /**
+     * The euclidean distance under which a collision is detected.
+     */
+    private final double reach;
+
+    /**
+     * The CollisionHandlerProvider used for handing collisions.
+     */
+    protected final CollisionHandlerProvider provider;
+
+    /**
+     * The pairs to report.
+     */
+    protected final PairMode pairMode;
+
+    /**
+     * The dispatcher grouping the collisions for BatchCollisionHandlers.
+     */
+    private final ContactDispatcher dispatcher = new ContactDispatcher();
+
+    /**
+     * Creates a new AbstractCollisionDetector with a limit for squared distances.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @throws NullPointerException if provider or pairMode is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    protected AbstractCollisionDetector(
+            double limit, CollisionHandlerProvider provider, PairMode pairMode) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, pairMode);
+    }
+
+    /**
+     * Creates a new AbstractCollisionDetector.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param limitMode what limit is compared to
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @throws NullPointerException if limitMode, provider or pairMode is null
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    protected AbstractCollisionDetector(double limit, LimitMode limitMode,
+                                        CollisionHandlerProvider provider, PairMode pairMode) {
+        if (!(limit > 0)) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+        if (Objects.requireNonNull(limitMode) == LimitMode.DISTANCE) {
+            this.squaredLimit = limit * limit;
+            this.reach = limit;
+        } else {
+            this.squaredLimit = limit;
+            this.reach = Math.sqrt(limit);
+        }
+        this.provider = Objects.requireNonNull(provider);
+        this.pairMode = Objects.requireNonNull(pairMode);
+    }
+
+    @Override
+    public final void doDetection(Collection<? extends Collideable> collideables) {
+        Objects.requireNonNull(collideables);
+        try {
+            detect(collideables);
+            dispatcher.flush();
+        } finally {
+            dispatcher.clear();
+        }
+    }
+
+    /**
+     * Detects the collisions between collideables and calls
+     * {@link #collide(Collideable, Collideable)} for each of them.
+     *
+     * @param collideables the Collideables to check for collisions
+     */
+    protected abstract void detect(Collection<? extends Collideable> collideables);
+
+    /**
+     * Returns the euclidean distance two positions must fall below to collide.
+     *
+     * <p>Spatial subdivisions use it as their cell size.
+     *
+     * @return the euclidean reach of the limit
+     */
+    protected double reach() {
+        return reach;
+    }
+
+    /**
+     * Returns the smallest index, which may be paired with index.
+     *
+     * <p>Detectors enumerating candidates by index only need to check
+     * the partners with at least this index.
+     *
+     * @param index the index of a Collideable
+     * @return 0 for {@code ALL_ORDERED}, index + 1 otherwise
+     */
+    protected int firstPartner(int index) {
+        return pairMode == PairMode.ALL_ORDERED ? 0 : index + 1;
+    }
+
+    /**
+     * Lets c1 and c2 collide by dispatching them to the CollisionHandler
+     * the provider returns for them.
+     *
+     * <p>If the pair mode is {@code DISTINCT_UNORDERED} and there is no
+     * CollisionHandler for (c1, c2), the one for (c2, c1) is used.
+     * If there is none either, the collision is ignored.
+     *
+     * @param c1 the first Collideable
+     * @param c2 the second Collideable
+     * @param <V> the type of c1
+     * @param <W> the type of c2
+     * @throws NullPointerException if c1 or c2 is null
+     */
+    protected <V extends Collideable, W extends Collideable> void collide(V c1, W c2) {
+        CollisionHandler<V, W> handler = provider.getHandlerFor(c1, c2);
+        if (handler == null && pairMode == PairMode.DISTINCT_UNORDERED) {
+            CollisionHandler<W, V> swapped = provider.getHandlerFor(c2, c1);
+            if (swapped != null) {
+                dispatcher.dispatch(swapped, c2, c1);
+                return;
+            }
+        }
+        if (handler != null) {
+            dispatcher.dispatch(handler, c1, c2);
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -22,13 +22,15 @@
 
 package de.leifaktor.robbie.controllers.collision;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import de.leifaktor.robbie.api.controllers.collision.Collideable;
 import de.leifaktor.robbie.api.controllers.collision.CollisionHandler;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
 
 /**
  * An abstraction layer for a mapping used by CollisionHandlerProviderImpl.
@@ -40,14 +42,118 @@ import java.util.Map;
  *
  * <p>Since Java is currently lacking such a type safety feature, the
  * type safety is guaranteed by implementation rather than by the compiler.
+ *
+ * <p>A lookup does not need an exact registration. If there is none, the
+ * super classes and interfaces of both classes are searched for the most
+ * specific registered pair, that is the one with the smallest sum of
+ * inheritance distances. A pair registered in swapped orientation matches
+ * as well; its CollisionHandler gets the arguments swapped. If two
+ * registrations are equally specific, one in the requested orientation
+ * wins over one in swapped orientation, wherever they are found in the
+ * hierarchies. Remaining ties are settled by the breadth first order of
+ * the super types of clazz1 and then clazz2, in which the super class
+ * comes before the interfaces in declaration order.
+ *
+ * <p>Every class gets a dense int id when it is first seen, which is
+ * cached per class in a ClassValue. The resolved CollisionHandlers are
+ * memoized in a square array indexed by these ids, so the hierarchy is
+ * walked once per pair of classes and a lookup afterwards costs a
+ * ClassValue lookup per class and two array reads. Registering a
+ * CollisionHandler clears the memoized results.
+ *
+ * <p>Lookups are thread-safe; registrations are serialized and should
+ * happen before the first lookups for best performance.
  */
 public class ClassMap {
 
     /**
-     * The Table containing the CollisionHandlers.
+     * The id of classes, which have not been seen yet.
+     */
+    private static final int NO_ID = -1;
+
+    /**
+     * Memoizes that there is no CollisionHandler for a pair of classes.
+     */
+    private static final Object NO_HANDLER = new Object();
+
+    /**
+     * The ids of the classes.
      */
-    private Table<Class<? extends Collideable>, Class<? extends Collideable>, CollisionHandler<?,?>>
-        handlers = HashBasedTable.create();
+    private final ClassValue<ClassId> ids = new ClassValue<ClassId>() {
+
+        @Override
+        protected ClassId computeValue(Class<?> type) {
+            return new ClassId();
+        }
+
+    };
+
+    /**
+     * The registered CollisionHandlers indexed by the ids of the classes.
+     *
+     * <p>It is guarded by this.
+     */
+    private CollisionHandler<?, ?>[][] registered = new CollisionHandler<?, ?>[0][0];
+
+    /**
+     * The memoized CollisionHandlers or NO_HANDLER indexed by the ids of the classes.
+     *
+     * <p>It is replaced, when it needs to grow or gets cleared.
+     * Its elements are only written, while holding the lock on this.
+     */
+    private volatile Object[][] resolved = new Object[0][0];
+
+    /**
+     * The number of ids assigned so far.
+     */
+    private int idCount;
+
+    /**
+     * The mutable id of a class.
+     */
+    private static final class ClassId {
+
+        /**
+         * The id or NO_ID, if it has not been assigned yet.
+         */
+        private volatile int id = NO_ID;
+
+        /**
+         * Creates a new ClassId without an id.
+         */
+        ClassId() {
+            super();
+        }
+
+    }
+
+    /**
+     * A super type of a class and its inheritance distance.
+     */
+    private static final class SuperType {
+
+        /**
+         * The super type.
+         */
+        private final Class<?> type;
+
+        /**
+         * The number of inheritance steps from the class to type.
+         */
+        private final int distance;
+
+        /**
+         * Creates a new SuperType.
+         *
+         * @param type the super type
+         * @param distance the number of inheritance steps to type
+         */
+        SuperType(Class<?> type, int distance) {
+            this.type = type;
+            this.distance = distance;
+        }
+
+    }
 
     /**
      * Creates a new ClassMap.
@@ -67,9 +173,15 @@ public class ClassMap {
      * @param <V> the type of one Collideable subclass
      * @param <W> the type of the other Collideable subclass
      */
-    public <V extends Collideable, W extends Collideable> void put(
+    public synchronized <V extends Collideable, W extends Collideable> void put(
             Class<V> clazz1, Class<W> clazz2, CollisionHandler<V, W> handler) {
-        handlers.put(clazz1, clazz2, handler);
+        int id1 = assignId(clazz1);
+        int id2 = assignId(clazz2);
+        if (registered.length < idCount) {
+            registered = grow(registered, idCount);
+        }
+        registered[id1][id2] = handler;
+        resolved = new Object[idCount][idCount];
     }
 
     /**
@@ -81,15 +193,170 @@ public class ClassMap {
      * @param clazz2 the class object of U
      * @param <T> the type of one Collideable subclass
      * @param <U> the type of the other Collideable subclass
-     * @return a CollisionHandler&lt;T,U&gt;
+     * @return the most specific CollisionHandler&lt;T,U&gt; or null, if there is none
      */
     @SuppressWarnings("unchecked")
     public <T extends Collideable, U extends Collideable>
             CollisionHandler<T, U> get(
             Class<T> clazz1, Class<U> clazz2) {
-        //Implementation of put(.,.,.) guarantees this cast to be valid
+        int id1 = ids.get(clazz1).id;
+        int id2 = ids.get(clazz2).id;
+        Object[][] table = resolved;
+        Object handler = null;
+        if (id1 != NO_ID && id2 != NO_ID && id1 < table.length && id2 < table.length) {
+            handler = table[id1][id2];
+        }
+        if (handler == null) {
+            handler = resolve(clazz1, clazz2);
+        }
+        //Implementation of put(.,.,.) and resolve(.,.) guarantees this cast to be valid
         //If someone has a solution doing this without casting feel free to contact me
-        return (CollisionHandler<T, U>) handlers.get(clazz1, clazz2);
+        return handler == NO_HANDLER ? null : (CollisionHandler<T, U>) handler;
+    }
+
+    /**
+     * Searches the most specific CollisionHandler for clazz1 and clazz2 and memoizes it.
+     *
+     * @param clazz1 the class of the first Collideable
+     * @param clazz2 the class of the second Collideable
+     * @return the CollisionHandler or NO_HANDLER, if there is none
+     */
+    private synchronized Object resolve(Class<?> clazz1, Class<?> clazz2) {
+        int id1 = assignId(clazz1);
+        int id2 = assignId(clazz2);
+        Object[][] table = resolved;
+        if (table.length < idCount) {
+            table = grow(table, idCount);
+            resolved = table;
+        }
+        if (table[id1][id2] == null) {
+            table[id1][id2] = search(clazz1, clazz2);
+        }
+        return table[id1][id2];
+    }
+
+    /**
+     * Searches the most specific registered CollisionHandler for clazz1 and clazz2.
+     *
+     * @param clazz1 the class of the first Collideable
+     * @param clazz2 the class of the second Collideable
+     * @return the CollisionHandler or NO_HANDLER, if there is none
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object search(Class<?> clazz1, Class<?> clazz2) {
+        List<SuperType> superTypes1 = superTypes(clazz1);
+        List<SuperType> superTypes2 = superTypes(clazz2);
+        Object best = NO_HANDLER;
+        int bestDistance = Integer.MAX_VALUE;
+        boolean bestDirect = false;
+        for (SuperType superType1 : superTypes1) {
+            for (SuperType superType2 : superTypes2) {
+                int distance = superType1.distance + superType2.distance;
+                if (distance > bestDistance || distance == bestDistance && bestDirect) {
+                    continue;
+                }
+                CollisionHandler<?, ?> direct = registered(superType1.type, superType2.type);
+                if (direct != null) {
+                    best = direct;
+                    bestDistance = distance;
+                    bestDirect = true;
+                    continue;
+                }
+                if (distance == bestDistance) {
+                    //an equally specific swapped registration was found first
+                    continue;
+                }
+                CollisionHandler<?, ?> swapped = registered(superType2.type, superType1.type);
+                if (swapped != null) {
+                    best = new SwappedCollisionHandler(swapped);
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the CollisionHandler registered for exactly clazz1 and clazz2.
+     *
+     * @param clazz1 the first class
+     * @param clazz2 the second class
+     * @return the registered CollisionHandler or null, if there is none
+     */
+    private CollisionHandler<?, ?> registered(Class<?> clazz1, Class<?> clazz2) {
+        int id1 = ids.get(clazz1).id;
+        int id2 = ids.get(clazz2).id;
+        if (id1 == NO_ID || id2 == NO_ID
+                || id1 >= registered.length || id2 >= registered.length) {
+            return null;
+        }
+        return registered[id1][id2];
+    }
+
+    /**
+     * Returns clazz and all its super classes and interfaces
+     * in breadth first order with their inheritance distance.
+     *
+     * @param clazz the class to get the super types of
+     * @return the super types of clazz, starting with clazz itself
+     */
+    private static List<SuperType> superTypes(Class<?> clazz) {
+        List<SuperType> superTypes = new ArrayList<>();
+        List<Class<?>> visited = new ArrayList<>();
+        Deque<SuperType> queue = new ArrayDeque<>();
+        queue.add(new SuperType(clazz, 0));
+        while (!queue.isEmpty()) {
+            SuperType current = queue.poll();
+            if (visited.contains(current.type)) {
+                continue;
+            }
+            visited.add(current.type);
+            superTypes.add(current);
+            Class<?> superClass = current.type.getSuperclass();
+            if (superClass != null) {
+                queue.add(new SuperType(superClass, current.distance + 1));
+            }
+            for (Class<?> superInterface : current.type.getInterfaces()) {
+                queue.add(new SuperType(superInterface, current.distance + 1));
+            }
+        }
+        return superTypes;
+    }
+
+    /**
+     * Returns the id of clazz and assigns the next free one, if it has none.
+     *
+     * <p>The caller must hold the lock on this.
+     *
+     * @param clazz the class to get the id of
+     * @return the id of clazz
+     */
+    private int assignId(Class<?> clazz) {
+        ClassId classId = ids.get(clazz);
+        if (classId.id == NO_ID) {
+            classId.id = idCount++;
+        }
+        return classId.id;
+    }
+
+    /**
+     * Returns a copy of table with size rows and columns.
+     *
+     * @param table the table to copy
+     * @param size the new size of the table
+     * @param <T> the component type of the table
+     * @return the grown copy
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[][] grow(T[][] table, int size) {
+        Class<?> componentType = table.getClass().getComponentType().getComponentType();
+        T[][] grown = Arrays.copyOf(table, size);
+        for (int i = 0; i < size; i++) {
+            grown[i] = i < table.length
+                    ? Arrays.copyOf(table[i], size)
+                    : (T[]) Array.newInstance(componentType, size);
+        }
+        return grown;
     }
 
 }
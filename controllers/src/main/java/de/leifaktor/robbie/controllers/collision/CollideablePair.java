@@ -47,33 +47,51 @@ public class CollideablePair<V extends Collideable, W extends Collideable> exten
     }
 
     /**
-     * Returns the current distance between the wrapped Collideables.
+     * Returns the current squared distance between the wrapped Collideables.
      *
      * <p>The distance is determined by {@link
-     * de.leifaktor.robbie.api.controllers.collision.DoublePosition#distanceTo(DoublePosition)}.
+     * de.leifaktor.robbie.api.controllers.collision.DoublePosition#squaredDistanceTo(
+     * DoublePosition)}.
      *
-     * @return the distance between the wrapped Collideables
-     * @see de.leifaktor.robbie.api.controllers.collision.DoublePosition#distanceTo(DoublePosition)
+     * @return the squared distance between the wrapped Collideables
+     * @see de.leifaktor.robbie.api.controllers.collision.DoublePosition#squaredDistanceTo(
+     *      DoublePosition)
      */
+    public double squaredDistance() {
+        return object1.getPosition().squaredDistanceTo(object2.getPosition());
+    }
+
+    /**
+     * Returns the current squared distance between the wrapped Collideables.
+     *
+     * @return the squared distance between the wrapped Collideables
+     * @deprecated use {@link #squaredDistance()}, whose name tells that
+     *             the distance is squared
+     */
+    @Deprecated
     public double distance() {
-        return object1.getPosition().distanceTo(object2.getPosition());
+        return squaredDistance();
     }
 
     @Override
     public int compareTo(CollideablePair<V, W> other) {
-        return Double.compare(distance(), other.distance());
+        return Double.compare(squaredDistance(), other.squaredDistance());
     }
 
     /**
      * Lets the wrapped Collideables collide.
      *
+     * <p>Nothing happens, if provider has no CollisionHandler for them.
+     *
      * @param provider the CollisionHandlerProvider to obtain
      *                 the CollisionHandler for the collision
      * @throws NullPointerException if provider is null
      */
     public void collide(CollisionHandlerProvider provider) {
         CollisionHandler<V,W> handler = provider.getHandlerFor(object1, object2);
-        handler.collisionHappened(object1, object2);
+        if (handler != null) {
+            handler.collisionHappened(object1, object2);
+        }
     }
 
 }
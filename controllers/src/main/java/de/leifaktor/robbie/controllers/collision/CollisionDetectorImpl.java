@@ -23,7 +23,6 @@
 package de.leifaktor.robbie.controllers.collision;
 
 import de.leifaktor.robbie.api.controllers.collision.Collideable;
-import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
 import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
 
 import java.util.Collection;
@@ -35,56 +34,135 @@ import java.util.Objects;
  * <p>This implementation detects a collision between two
  * Collideables if their distance is smaller than the limit
  * set on construction.
+ *
+ * <p>Every Collideable is compared with every Collideable, or with every
+ * later one if only distinct unordered pairs are reported. The positions
+ * are copied once per detection into reused primitive arrays and the pairs
+ * are enumerated by index, so a detection does not allocate anything
+ * but what the CollisionHandlers do, once the arrays are large enough.
+ * The distances of one Collideable to all its partners are computed in
+ * one block by a {@link DistanceKernel} before they are compared to the
+ * limit. By default the scalar kernel is used, which the JIT can vectorize.
+ *
+ * <p>This class is not thread-safe.
  */
-public class CollisionDetectorImpl implements CollisionDetector {
+public class CollisionDetectorImpl extends AbstractCollisionDetector {
+
+    /**
+     * The snapshot of the current detection.
+     */
+    private final PositionSnapshot snapshot = new PositionSnapshot();
 
     /**
-     * The distance under which a collision is detected.
+     * The squared distances of one Collideable to its partners.
      */
-    private final double limit;
+    private double[] distances = new double[0];
 
     /**
-     * The CollisionHandlerProvider used for handing collisions.
+     * The kernel computing the distances.
      */
-    private final CollisionHandlerProvider provider;
+    private final DistanceKernel kernel;
 
     /**
-     * Creates a new CollisionDetector.
+     * Creates a new CollisionDetector reporting all ordered pairs.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
      *
      * @param limit the threshold for detecting a collision
      * @param provider the CollisionHandlerProvider providing CollisionHandlers
      * @throws NullPointerException if provider is null
      * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
      */
+    @Deprecated
     public CollisionDetectorImpl(double limit, CollisionHandlerProvider provider) {
-        if (limit <= 0) {
-            throw new IllegalArgumentException();
-        }
-        this.limit = limit;
-        this.provider = Objects.requireNonNull(provider);
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, PairMode.ALL_ORDERED,
+                DistanceKernels.scalar());
     }
 
-    @Override
-    public void doDetection(Collection<? extends Collideable> collideables) {
-        collideables.stream().flatMap(c1 ->
-                collideables.stream().map(c2 -> makePair(c1, c2)))
-                .filter(pair -> pair.distance() < limit)
-                .forEach(pair -> pair.collide(provider));
+    /**
+     * Creates a new CollisionDetector reporting the pairs given by pairMode.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @throws NullPointerException if provider or pairMode is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public CollisionDetectorImpl(double limit, CollisionHandlerProvider provider, PairMode pairMode) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, pairMode, DistanceKernels.scalar());
     }
 
     /**
-     * Creates a CollideablePair.
+     * Creates a new CollisionDetector reporting the pairs given by pairMode
+     * and computing the distances with kernel.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
      *
-     * @param collideable1 the first Collideable
-     * @param collideable2 the second Collideable
-     * @param <V> the type of collideable1
-     * @param <W> the type of collideable2
-     * @return a CollideablePair containing collideable1 and collideable2
-     * @throws NullPointerException if collideable1 or collideable2 is null
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @param kernel the DistanceKernel computing the distances
+     * @throws NullPointerException if provider, pairMode or kernel is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
      */
-    private <V extends Collideable, W extends Collideable>
-                CollideablePair<V, W> makePair(V collideable1, W collideable2) {
-        return new CollideablePair<>(collideable1, collideable2);
+    @Deprecated
+    public CollisionDetectorImpl(double limit, CollisionHandlerProvider provider,
+                                 PairMode pairMode, DistanceKernel kernel) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, pairMode, kernel);
+    }
+
+    /**
+     * Creates a new CollisionDetector reporting the pairs given by pairMode,
+     * comparing limit as given by limitMode and computing the distances
+     * with kernel.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param limitMode what limit is compared to
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @param kernel the DistanceKernel computing the distances
+     * @throws NullPointerException if limitMode, provider, pairMode or kernel is null
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public CollisionDetectorImpl(double limit, LimitMode limitMode,
+                                 CollisionHandlerProvider provider, PairMode pairMode,
+                                 DistanceKernel kernel) {
+        super(limit, limitMode, provider, pairMode);
+        this.kernel = Objects.requireNonNull(kernel);
+    }
+
+    @Override
+    protected void detect(Collection<? extends Collideable> collideables) {
+        snapshot.take(collideables);
+        try {
+            int size = snapshot.size();
+            if (distances.length < size) {
+                distances = new double[size];
+            }
+            for (int i = 0; i < size; i++) {
+                int first = firstPartner(i);
+                snapshot.distances(kernel, i, first, size, distances);
+                for (int j = first; j < size; j++) {
+                    if (distances[j - first] < squaredLimit) {
+                        collide(snapshot.get(i), snapshot.get(j));
+                    }
+                }
+            }
+        } finally {
+            snapshot.release();
+        }
     }
 
 }
@@ -29,8 +29,14 @@ import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
 /**
  * Implements the CollisionHandlerProvider interface.
  *
- * <p>This implementation requires that for each pair of Collideable
- * subclasses there is exactly one CollisionHandler for that pair.</p>
+ * <p>This implementation does not require a CollisionHandler for every pair
+ * of concrete Collideable subclasses. A CollisionHandler registered for super
+ * classes or interfaces or in swapped orientation is used as well, the most
+ * specific one winning. The result is memoized per pair of classes.
+ * See {@link ClassMap} for details.
+ *
+ * <p>If no registered CollisionHandler matches at all,
+ * {@link #getHandlerFor(Collideable, Collideable)} returns null.</p>
  */
 public class CollisionHandlerProviderImpl implements CollisionHandlerProvider {
 
@@ -0,0 +1,226 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.RoomController;
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A ClockListener running the collision detection of every unfrozen room.
+ *
+ * <p>Every room is registered with its own CollisionDetector and its own
+ * collection of Collideables, which is read on each tick. Frozen rooms are
+ * skipped entirely, so only the rooms with activity cost anything.
+ *
+ * <p>Implementations of RoomController are expected to call
+ * {@link #roomFrozen(RoomController)} from {@link RoomController#freeze()}
+ * and {@link #roomUnfrozen(RoomController)} from
+ * {@link RoomController#unfreeze()}. Rooms are registered unfrozen.
+ *
+ * <p>This class is thread-safe. Rooms may be registered, frozen and
+ * unfrozen while ticks are running. The rooms detected on a tick are
+ * fixed when the tick starts, and a tick neither locks nor allocates.
+ */
+public class CollisionScheduler implements ClockListener {
+
+    /**
+     * The empty array of rooms.
+     */
+    private static final Room[] NO_ROOMS = new Room[0];
+
+    /**
+     * The registered rooms.
+     */
+    private final Map<RoomController, Room> rooms = new IdentityHashMap<>();
+
+    /**
+     * The unfrozen rooms in order of registration, replaced on every change.
+     */
+    private volatile Room[] active = NO_ROOMS;
+
+    /**
+     * The number of registrations so far.
+     */
+    private long registrations;
+
+    /**
+     * The collision detection of a room.
+     */
+    private static final class Room {
+
+        /**
+         * The detector of the room.
+         */
+        private final CollisionDetector detector;
+
+        /**
+         * The Collideables in the room.
+         */
+        private final Collection<? extends Collideable> collideables;
+
+        /**
+         * The number of the registration, which orders the rooms.
+         */
+        private final long order;
+
+        /**
+         * Whether the room is frozen.
+         */
+        private boolean frozen;
+
+        /**
+         * Creates a new Room.
+         *
+         * @param detector the detector of the room
+         * @param collideables the Collideables in the room
+         * @param order the number of the registration
+         */
+        Room(CollisionDetector detector, Collection<? extends Collideable> collideables,
+             long order) {
+            this.detector = detector;
+            this.collideables = collideables;
+            this.order = order;
+        }
+
+    }
+
+    /**
+     * Creates a new CollisionScheduler without any rooms.
+     */
+    public CollisionScheduler() {
+        super();
+    }
+
+    /**
+     * Registers an unfrozen room.
+     *
+     * <p>A room registered before is replaced.
+     *
+     * @param room the RoomController of the room
+     * @param detector the CollisionDetector for the room
+     * @param collideables the Collideables in the room; it is read on
+     *        every tick, so it should reflect the room's current state
+     * @throws NullPointerException if any argument is null
+     */
+    public synchronized void register(RoomController room, CollisionDetector detector,
+                                      Collection<? extends Collideable> collideables) {
+        rooms.put(Objects.requireNonNull(room), new Room(Objects.requireNonNull(detector),
+                Objects.requireNonNull(collideables), registrations++));
+        updateActive();
+    }
+
+    /**
+     * Unregisters a room.
+     *
+     * @param room the RoomController of the room
+     * @return true if the room was registered
+     */
+    public synchronized boolean unregister(RoomController room) {
+        boolean registered = rooms.remove(room) != null;
+        if (registered) {
+            updateActive();
+        }
+        return registered;
+    }
+
+    /**
+     * Stops detecting collisions in room.
+     *
+     * @param room the RoomController of the room
+     * @throws IllegalArgumentException if room is not registered
+     */
+    public synchronized void roomFrozen(RoomController room) {
+        setFrozen(room, true);
+    }
+
+    /**
+     * Resumes detecting collisions in room.
+     *
+     * @param room the RoomController of the room
+     * @throws IllegalArgumentException if room is not registered
+     */
+    public synchronized void roomUnfrozen(RoomController room) {
+        setFrozen(room, false);
+    }
+
+    /**
+     * Returns whether collisions in room are detected.
+     *
+     * @param room the RoomController of the room
+     * @return true if room is registered and not frozen
+     */
+    public synchronized boolean isActive(RoomController room) {
+        Room entry = rooms.get(room);
+        return entry != null && !entry.frozen;
+    }
+
+    /**
+     * Sets whether room is frozen.
+     *
+     * @param room the RoomController of the room
+     * @param frozen whether it is frozen
+     * @throws IllegalArgumentException if room is not registered
+     */
+    private void setFrozen(RoomController room, boolean frozen) {
+        Room entry = rooms.get(room);
+        if (entry == null) {
+            throw new IllegalArgumentException("The room is not registered.");
+        }
+        if (entry.frozen != frozen) {
+            entry.frozen = frozen;
+            updateActive();
+        }
+    }
+
+    /**
+     * Replaces the unfrozen rooms detected on the following ticks.
+     */
+    private void updateActive() {
+        active = rooms.values().stream()
+                .filter(room -> !room.frozen)
+                .sorted((room1, room2) -> Long.compare(room1.order, room2.order))
+                .toArray(Room[]::new);
+    }
+
+    /**
+     * Runs the collision detection of every unfrozen room.
+     *
+     * <p>The rooms are detected in the order they were registered.
+     */
+    @Override
+    public void ticksPassed() {
+        for (Room room : active) {
+            room.detector.doDetection(room.collideables);
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
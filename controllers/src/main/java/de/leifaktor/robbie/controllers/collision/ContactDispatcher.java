@@ -0,0 +1,209 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.BatchCollisionHandler;
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandler;
+import de.leifaktor.robbie.api.controllers.collision.ContactHandler;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatches the collisions of a detection to their CollisionHandlers.
+ *
+ * <p>Plain CollisionHandlers are called immediately. The collisions for
+ * {@link BatchCollisionHandler}s are grouped by handler and passed on
+ * {@link #flush()}, one call per handler in the order the handlers were
+ * first needed. The collisions for {@link ContactHandler}s are passed to a
+ * {@link ContactTracker}, which reports them as begun or persisted and
+ * reports the contacts not found again as ended on {@link #flush()}.
+ * A SwappedCollisionHandler wrapping one of these handlers passes its
+ * collisions swapped to the wrapped handler instead.
+ *
+ * <p>The batch buffers are reused between detections.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class ContactDispatcher {
+
+    /**
+     * The batches of all BatchCollisionHandlers seen so far.
+     */
+    private final Map<BatchCollisionHandler<?, ?>, Batch> batches = new IdentityHashMap<>();
+
+    /**
+     * The batches with collisions in the current detection, in order of first use.
+     */
+    private final List<Batch> pending = new ArrayList<>();
+
+    /**
+     * The tracker of the contacts of ContactHandlers.
+     */
+    private final ContactTracker contacts = new ContactTracker();
+
+    /**
+     * The collisions of one BatchCollisionHandler.
+     */
+    private static final class Batch {
+
+        /**
+         * The handler to pass the collisions to.
+         */
+        private final BatchCollisionHandler<?, ?> handler;
+
+        /**
+         * The first Collideables of the collisions.
+         */
+        private final List<Collideable> firsts = new ArrayList<>();
+
+        /**
+         * The second Collideables of the collisions.
+         */
+        private final List<Collideable> seconds = new ArrayList<>();
+
+        /**
+         * Creates a new empty Batch.
+         *
+         * @param handler the handler to pass the collisions to
+         */
+        Batch(BatchCollisionHandler<?, ?> handler) {
+            this.handler = handler;
+        }
+
+        /**
+         * Passes the collected collisions to the handler.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void flush() {
+            //Only collisions the handler is responsible for got added
+            ((BatchCollisionHandler) handler).collisionsHappened(firsts, seconds);
+        }
+
+        /**
+         * Removes all collected collisions.
+         */
+        void clear() {
+            firsts.clear();
+            seconds.clear();
+        }
+
+    }
+
+    /**
+     * Creates a new ContactDispatcher.
+     */
+    ContactDispatcher() {
+        super();
+    }
+
+    /**
+     * Dispatches the collision of c1 and c2 to handler.
+     *
+     * @param handler the CollisionHandler responsible for c1 and c2
+     * @param c1 the first Collideable
+     * @param c2 the second Collideable
+     * @param <V> the type of c1
+     * @param <W> the type of c2
+     */
+    <V extends Collideable, W extends Collideable> void dispatch(
+            CollisionHandler<V, W> handler, V c1, W c2) {
+        if (handler instanceof SwappedCollisionHandler) {
+            CollisionHandler<W, V> delegate =
+                    ((SwappedCollisionHandler<V, W>) handler).getDelegate();
+            if (delegate instanceof ContactHandler || delegate instanceof BatchCollisionHandler) {
+                dispatch(delegate, c2, c1);
+                return;
+            }
+        }
+        if (handler instanceof ContactHandler) {
+            contacts.track((ContactHandler<V, W>) handler, c1, c2);
+        } else if (handler instanceof BatchCollisionHandler) {
+            add((BatchCollisionHandler<?, ?>) handler, c1, c2);
+        } else {
+            handler.collisionHappened(c1, c2);
+        }
+    }
+
+    /**
+     * Adds a collision to the batch of handler.
+     *
+     * @param handler the handler responsible for the collision
+     * @param c1 the first Collideable
+     * @param c2 the second Collideable
+     */
+    private void add(BatchCollisionHandler<?, ?> handler, Collideable c1, Collideable c2) {
+        Batch batch = batches.get(handler);
+        if (batch == null) {
+            batch = new Batch(handler);
+            batches.put(handler, batch);
+        }
+        if (batch.firsts.isEmpty()) {
+            pending.add(batch);
+        }
+        batch.firsts.add(c1);
+        batch.seconds.add(c2);
+    }
+
+    /**
+     * Passes the collected collisions to their BatchCollisionHandlers and
+     * reports the contacts, which were not found again, as ended.
+     *
+     * <p>The batches are cleared afterwards, even if a handler throws.
+     */
+    void flush() {
+        try {
+            for (Batch batch : pending) {
+                batch.flush();
+            }
+        } finally {
+            clearBatches();
+        }
+        contacts.finish();
+    }
+
+    /**
+     * Discards the collected collisions and the contacts found since
+     * the last flush.
+     */
+    void clear() {
+        clearBatches();
+        contacts.abort();
+    }
+
+    /**
+     * Discards the collected collisions of the batches.
+     */
+    private void clearBatches() {
+        for (Batch batch : pending) {
+            batch.clear();
+        }
+        pending.clear();
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,285 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.ContactHandler;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the contacts of ContactHandlers across detections.
+ *
+ * <p>The contacts of the previous and of the current detection are kept
+ * in two {@link ContactSet}s, which swap their roles after each detection.
+ * A contact is identified by its handler and the identities of its
+ * Collideables regardless of their order, so a detector reporting both
+ * orientations of a pair, as in {@link PairMode#ALL_ORDERED}, does not
+ * start two contacts. A contact found in the current detection is reported
+ * as begun unless the previous set contains it and is reported only once
+ * per detection, in the orientation it was found first. A Collideable is
+ * never in contact with itself. After the detection, the contacts of the
+ * previous set which were not found again are reported as ended in the
+ * order they began or were last found in.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class ContactTracker {
+
+    /**
+     * The contacts of the last finished detection.
+     */
+    private ContactSet previous = new ContactSet();
+
+    /**
+     * The contacts found so far in the current detection.
+     */
+    private ContactSet current = new ContactSet();
+
+    /**
+     * A set of contacts keyed by their handlers and the unordered
+     * identities of their Collideables.
+     *
+     * <p>The contacts are stored densely in insertion order in parallel
+     * arrays. An open addressing table with linear probing maps the
+     * pairs to their indices.
+     */
+    private static final class ContactSet {
+
+        /**
+         * The initial number of slots of the table.
+         */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * The first Collideables of the contacts.
+         */
+        private Collideable[] firsts = new Collideable[INITIAL_CAPACITY / 2];
+
+        /**
+         * The second Collideables of the contacts.
+         */
+        private Collideable[] seconds = new Collideable[INITIAL_CAPACITY / 2];
+
+        /**
+         * The handlers of the contacts.
+         */
+        private ContactHandler<?, ?>[] handlers = new ContactHandler<?, ?>[INITIAL_CAPACITY / 2];
+
+        /**
+         * Whether the contacts were found again in the following detection.
+         */
+        private boolean[] found = new boolean[INITIAL_CAPACITY / 2];
+
+        /**
+         * The number of contacts.
+         */
+        private int size;
+
+        /**
+         * The index of the contact plus one for each slot, 0 if empty.
+         */
+        private int[] table = new int[INITIAL_CAPACITY];
+
+        /**
+         * Creates a new empty ContactSet.
+         */
+        ContactSet() {
+            super();
+        }
+
+        /**
+         * Returns the slot to start probing for a pair at.
+         *
+         * <p>The slot does not depend on the order of the Collideables.
+         *
+         * @param first the first Collideable of the pair
+         * @param second the second Collideable of the pair
+         * @return the first slot to check
+         */
+        private int slotOf(Collideable first, Collideable second) {
+            int hash1 = System.identityHashCode(first);
+            int hash2 = System.identityHashCode(second);
+            int hash = Math.min(hash1, hash2) * 0x9E3779B9 + Math.max(hash1, hash2);
+            return (hash ^ (hash >>> 16)) & (table.length - 1);
+        }
+
+        /**
+         * Returns the index of the contact of first and second in either order.
+         *
+         * @param handler the handler of the contact
+         * @param first the first Collideable of the contact
+         * @param second the second Collideable of the contact
+         * @return its index or -1 if there is no such contact
+         */
+        int indexOf(ContactHandler<?, ?> handler, Collideable first, Collideable second) {
+            int mask = table.length - 1;
+            for (int slot = slotOf(first, second); table[slot] != 0; slot = (slot + 1) & mask) {
+                int index = table[slot] - 1;
+                if (handlers[index] == handler
+                        && (firsts[index] == first && seconds[index] == second
+                        || firsts[index] == second && seconds[index] == first)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds a contact, which must not be contained yet.
+         *
+         * @param handler the handler of the contact
+         * @param first the first Collideable of the contact
+         * @param second the second Collideable of the contact
+         */
+        void add(ContactHandler<?, ?> handler, Collideable first, Collideable second) {
+            if (size == firsts.length) {
+                grow();
+            }
+            firsts[size] = first;
+            seconds[size] = second;
+            handlers[size] = handler;
+            found[size] = false;
+            size++;
+            insert(size - 1);
+        }
+
+        /**
+         * Puts the index of a stored contact into the table.
+         *
+         * @param index the index of the contact
+         */
+        private void insert(int index) {
+            int mask = table.length - 1;
+            int slot = slotOf(firsts[index], seconds[index]);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+
+        /**
+         * Doubles the capacity, keeping the table at most half full.
+         */
+        private void grow() {
+            int capacity = firsts.length * 2;
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+            handlers = Arrays.copyOf(handlers, capacity);
+            found = Arrays.copyOf(found, capacity);
+            table = new int[capacity * 2];
+            for (int index = 0; index < size; index++) {
+                insert(index);
+            }
+        }
+
+        /**
+         * Removes all contacts.
+         */
+        void clear() {
+            Arrays.fill(firsts, 0, size, null);
+            Arrays.fill(seconds, 0, size, null);
+            Arrays.fill(handlers, 0, size, null);
+            Arrays.fill(table, 0);
+            size = 0;
+        }
+
+    }
+
+    /**
+     * Creates a new ContactTracker without any contacts.
+     */
+    ContactTracker() {
+        super();
+    }
+
+    /**
+     * Reports the contact of c1 and c2 found in the current detection
+     * to handler.
+     *
+     * <p>Self-pairs and contacts already reported in the current detection
+     * are ignored.
+     *
+     * @param handler the ContactHandler responsible for c1 and c2
+     * @param c1 the first Collideable
+     * @param c2 the second Collideable
+     * @param <V> the type of c1
+     * @param <W> the type of c2
+     */
+    <V extends Collideable, W extends Collideable> void track(
+            ContactHandler<V, W> handler, V c1, W c2) {
+        if (c1 == c2 || current.indexOf(handler, c1, c2) >= 0) {
+            return;
+        }
+        current.add(handler, c1, c2);
+        int index = previous.indexOf(handler, c1, c2);
+        if (index >= 0) {
+            previous.found[index] = true;
+            handler.contactPersisted(c1, c2);
+        } else {
+            handler.contactBegan(c1, c2);
+        }
+    }
+
+    /**
+     * Finishes the current detection by reporting the contacts of the
+     * previous detection, which were not found again, as ended.
+     *
+     * <p>The contacts of the current detection become the previous ones,
+     * even if a handler throws.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void finish() {
+        try {
+            for (int index = 0; index < previous.size; index++) {
+                if (!previous.found[index]) {
+                    //The handler was chosen for exactly these Collideables
+                    ((ContactHandler) previous.handlers[index]).contactEnded(
+                            previous.firsts[index], previous.seconds[index]);
+                }
+            }
+        } finally {
+            ContactSet finished = current;
+            previous.clear();
+            current = previous;
+            previous = finished;
+        }
+    }
+
+    /**
+     * Discards the contacts found in the current detection.
+     *
+     * <p>The next detection is compared to the last finished one again.
+     */
+    void abort() {
+        if (current.size > 0) {
+            current.clear();
+            for (int index = 0; index < previous.size; index++) {
+                previous.found[index] = false;
+            }
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
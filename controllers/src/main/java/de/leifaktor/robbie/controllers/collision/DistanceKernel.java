@@ -0,0 +1,60 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+/**
+ * Computes the squared distances of one position to a block of positions.
+ *
+ * <p>The positions are given as parallel arrays of coordinates. All
+ * implementations compute {@code (x - xs[j])^2 + (y - ys[j])^2} like
+ * {@link de.leifaktor.robbie.api.controllers.collision.DoublePosition#squaredDistanceTo(
+ * de.leifaktor.robbie.api.controllers.collision.DoublePosition)}
+ * and therefore return the same results.
+ *
+ * <p>Implementations are obtained from {@link DistanceKernels}.
+ */
+public interface DistanceKernel {
+
+    /**
+     * Writes the squared distances between (x, y) and the positions
+     * from from (inclusive) to to (exclusive) into distances.
+     *
+     * <p>The distance to the j-th position is written to
+     * {@code distances[j - from]}.
+     *
+     * @param x the x coordinate of the position
+     * @param y the y coordinate of the position
+     * @param xs the x coordinates of the other positions
+     * @param ys the y coordinates of the other positions
+     * @param from the index of the first other position
+     * @param to the index after the last other position
+     * @param distances the array to write the distances to
+     * @throws NullPointerException if any of the arrays is null
+     * @throws IndexOutOfBoundsException if any of the arrays is too short
+     */
+    void distances(double x, double y, double[] xs, double[] ys, int from, int to,
+                   double[] distances);
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
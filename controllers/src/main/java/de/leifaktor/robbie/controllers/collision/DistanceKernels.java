@@ -0,0 +1,112 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides the available DistanceKernels.
+ */
+public final class DistanceKernels {
+
+    /**
+     * The Logger for this class.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DistanceKernels.class);
+
+    /**
+     * The name of the DistanceKernel using the incubating Vector API.
+     *
+     * <p>It lives in the vector project, which needs the module
+     * {@code jdk.incubator.vector} at compile and run time.
+     */
+    private static final String VECTOR_KERNEL =
+            "de.leifaktor.robbie.controllers.collision.vector.VectorDistanceKernel";
+
+    /**
+     * Private constructor, since there are only static methods.
+     */
+    private DistanceKernels() {
+        super();
+    }
+
+    /**
+     * Holds the vectorized DistanceKernel, so it is only looked up once.
+     */
+    private static final class VectorizedHolder {
+
+        /**
+         * The vectorized DistanceKernel or the scalar one, if it is unavailable.
+         */
+        private static final DistanceKernel KERNEL = loadVectorized();
+
+        /**
+         * Private constructor, since there are only static members.
+         */
+        private VectorizedHolder() {
+            super();
+        }
+
+    }
+
+    /**
+     * Returns the DistanceKernel computing one distance after the other.
+     *
+     * @return the scalar DistanceKernel
+     */
+    public static DistanceKernel scalar() {
+        return ScalarDistanceKernel.INSTANCE;
+    }
+
+    /**
+     * Returns the DistanceKernel using the lanes of the Vector API, if it is available.
+     *
+     * <p>It is available, if the vector project is on the class path and
+     * the module {@code jdk.incubator.vector} is added to the JVM. Otherwise
+     * the scalar DistanceKernel is returned.
+     *
+     * @return the vectorized DistanceKernel or the scalar one
+     */
+    public static DistanceKernel vectorized() {
+        return VectorizedHolder.KERNEL;
+    }
+
+    /**
+     * Loads the vectorized DistanceKernel.
+     *
+     * @return the vectorized DistanceKernel or the scalar one, if it cannot be loaded
+     */
+    private static DistanceKernel loadVectorized() {
+        try {
+            return Class.forName(VECTOR_KERNEL).asSubclass(DistanceKernel.class)
+                    .getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.debug("The vectorized DistanceKernel is unavailable.", e);
+            return scalar();
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,140 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+
+import java.util.Collection;
+
+/**
+ * A CollisionDetector using a uniform grid as broad phase.
+ *
+ * <p>The positions are hashed into square cells, whose edge length is
+ * derived from the limit. Only Collideables in the same or in neighbouring
+ * cells are compared, so the cost per detection is roughly linear in the
+ * number of Collideables, as long as they are not packed into a few cells.
+ *
+ * <p>The detected collisions and the order in which the CollisionHandlers
+ * are called are identical to those of {@link CollisionDetectorImpl}.
+ * The positions are read once at the beginning of every detection.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class GridCollisionDetector extends AbstractCollisionDetector {
+
+    /**
+     * The snapshot of the current detection.
+     */
+    private final PositionSnapshot snapshot = new PositionSnapshot();
+
+    /**
+     * The grid of the current detection.
+     */
+    private final UniformGrid grid;
+
+    /**
+     * The buffer for the candidates of one Collideable.
+     */
+    private final IntList candidates = new IntList();
+
+    /**
+     * Creates a new GridCollisionDetector reporting all ordered pairs.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @throws NullPointerException if provider is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public GridCollisionDetector(double limit, CollisionHandlerProvider provider) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, PairMode.ALL_ORDERED);
+    }
+
+    /**
+     * Creates a new GridCollisionDetector reporting the pairs given by pairMode.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @throws NullPointerException if provider or pairMode is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public GridCollisionDetector(
+            double limit, CollisionHandlerProvider provider, PairMode pairMode) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, pairMode);
+    }
+
+    /**
+     * Creates a new GridCollisionDetector reporting the pairs given by pairMode
+     * and comparing limit as given by limitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param limitMode what limit is compared to
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @throws NullPointerException if limitMode, provider or pairMode is null
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public GridCollisionDetector(double limit, LimitMode limitMode,
+            CollisionHandlerProvider provider, PairMode pairMode) {
+        super(limit, limitMode, provider, pairMode);
+        grid = new UniformGrid(reach() * UniformGrid.CELL_SLACK);
+    }
+
+    @Override
+    protected void detect(Collection<? extends Collideable> collideables) {
+        snapshot.take(collideables);
+        try {
+            grid.build(snapshot);
+            for (int i = 0; i < snapshot.size(); i++) {
+                candidates.clear();
+                grid.gatherNeighbours(i, candidates);
+                candidates.sort();
+                int first = firstPartner(i);
+                for (int k = 0; k < candidates.size(); k++) {
+                    int j = candidates.get(k);
+                    if (j >= first && snapshot.distance(i, j) < squaredLimit) {
+                        collide(snapshot.get(i), snapshot.get(j));
+                    }
+                }
+            }
+        } finally {
+            snapshot.release();
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
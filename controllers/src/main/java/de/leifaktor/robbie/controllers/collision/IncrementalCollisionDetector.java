@@ -0,0 +1,484 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A CollisionDetector which only re-tests the Collideables that moved.
+ *
+ * <p>This detector keeps a persistent uniform grid of all Collideables and
+ * the contacts found so far. On every detection the position of each
+ * Collideable is compared to the one it had in the previous detection.
+ * Only the contacts of Collideables whose position changed, which were
+ * added or which were removed are recomputed, so the number of distance
+ * checks is proportional to the number of movers instead of the number of
+ * pairs. All current contacts are reported on every detection, just like
+ * the other detectors do.
+ *
+ * <p>Contacts are always reported in {@link PairMode#DISTINCT_UNORDERED}
+ * fashion, in the order of the first Collideable in the collection.
+ *
+ * <p>Collideables are identified by reference, not by equals().
+ *
+ * <p>All positions are read before any state is changed, so a Collideable
+ * failing to report its position leaves this detector as it was after the
+ * previous detection.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class IncrementalCollisionDetector extends AbstractCollisionDetector {
+
+    /**
+     * The initial number of slots of the cell table.
+     */
+    private static final int MIN_SLOTS = 16;
+
+    /**
+     * The multiplier spreading packed cell coordinates over the slots.
+     */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The edge length of a cell.
+     */
+    private final double cellSize;
+
+    /**
+     * The known Collideables and their state.
+     */
+    private final Map<Collideable, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * The snapshot of the current detection.
+     */
+    private final PositionSnapshot snapshot = new PositionSnapshot();
+
+    /**
+     * The open addressed table of the non-empty cells of the grid.
+     */
+    private Cell[] slots = new Cell[MIN_SLOTS];
+
+    /**
+     * The number of cells in slots.
+     */
+    private int cellCount;
+
+    /**
+     * The entries in the order of the current detection.
+     */
+    private final List<Entry> current = new ArrayList<>();
+
+    /**
+     * The entries which moved since the previous detection.
+     */
+    private final List<Entry> movers = new ArrayList<>();
+
+    /**
+     * The number of the current detection.
+     */
+    private long detection;
+
+    /**
+     * The state of a Collideable known to this detector.
+     */
+    private static final class Entry {
+
+        /**
+         * The Collideable this is the state of.
+         */
+        private final Collideable collideable;
+
+        /**
+         * The Collideables this is in contact with.
+         */
+        private final List<Entry> contacts = new ArrayList<>();
+
+        /**
+         * The last known x coordinate.
+         */
+        private double xPos;
+
+        /**
+         * The last known y coordinate.
+         */
+        private double yPos;
+
+        /**
+         * The packed coordinates of the cell this is in.
+         */
+        private long cell;
+
+        /**
+         * The number of the last detection this was part of.
+         */
+        private long seen;
+
+        /**
+         * The number of the last detection this moved in.
+         */
+        private long moved;
+
+        /**
+         * The index in the collection of the current detection.
+         */
+        private int order;
+
+        /**
+         * Creates a new Entry.
+         *
+         * @param collideable the Collideable to keep the state of
+         */
+        Entry(Collideable collideable) {
+            this.collideable = collideable;
+        }
+
+    }
+
+    /**
+     * A non-empty cell of the grid.
+     */
+    private static final class Cell {
+
+        /**
+         * The packed coordinates of this cell.
+         */
+        private final long key;
+
+        /**
+         * The entries in this cell.
+         */
+        private final List<Entry> entries = new ArrayList<>();
+
+        /**
+         * Creates a new empty Cell.
+         *
+         * @param key the packed coordinates of the cell
+         */
+        Cell(long key) {
+            this.key = key;
+        }
+
+    }
+
+    /**
+     * Creates a new IncrementalCollisionDetector.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @throws NullPointerException if provider is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public IncrementalCollisionDetector(double limit, CollisionHandlerProvider provider) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider);
+    }
+
+    /**
+     * Creates a new IncrementalCollisionDetector comparing limit as given by limitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param limitMode what limit is compared to
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @throws NullPointerException if limitMode or provider is null
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public IncrementalCollisionDetector(
+            double limit, LimitMode limitMode, CollisionHandlerProvider provider) {
+        super(limit, limitMode, provider, PairMode.DISTINCT_UNORDERED);
+        cellSize = reach() * UniformGrid.CELL_SLACK;
+    }
+
+    @Override
+    protected void detect(Collection<? extends Collideable> collideables) {
+        snapshot.take(collideables);
+        try {
+            detection++;
+            current.clear();
+            movers.clear();
+            for (int i = 0; i < snapshot.size(); i++) {
+                register(snapshot.get(i), snapshot.getX(i), snapshot.getY(i));
+            }
+            if (entries.size() > current.size()) {
+                removeUnseen();
+            }
+            for (Entry mover : movers) {
+                dropContacts(mover);
+            }
+            for (Entry mover : movers) {
+                findContacts(mover);
+            }
+            movers.clear();
+        } finally {
+            snapshot.release();
+        }
+        for (Entry entry : current) {
+            for (Entry partner : entry.contacts) {
+                if (partner.order > entry.order) {
+                    collide(entry.collideable, partner.collideable);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers a Collideable of the current detection and records,
+     * if it is new or moved.
+     *
+     * @param collideable the Collideable to register
+     * @param xPos the x coordinate of collideable
+     * @param yPos the y coordinate of collideable
+     */
+    private void register(Collideable collideable, double xPos, double yPos) {
+        Entry entry = entries.get(collideable);
+        if (entry == null) {
+            entry = new Entry(collideable);
+            entries.put(collideable, entry);
+            move(entry, xPos, yPos, true);
+        } else if (entry.seen != detection && (entry.xPos != xPos || entry.yPos != yPos)) {
+            move(entry, xPos, yPos, false);
+        }
+        if (entry.seen != detection) {
+            entry.seen = detection;
+            entry.order = current.size();
+            current.add(entry);
+        }
+    }
+
+    /**
+     * Updates the position of entry and puts it into the correct cell.
+     *
+     * @param entry the moved entry
+     * @param xPos the new x coordinate
+     * @param yPos the new y coordinate
+     * @param isNew if entry has not been in the grid before
+     */
+    private void move(Entry entry, double xPos, double yPos, boolean isNew) {
+        entry.xPos = xPos;
+        entry.yPos = yPos;
+        long cell = pack(cellOf(xPos), cellOf(yPos));
+        if (isNew || cell != entry.cell) {
+            if (!isNew) {
+                leaveCell(entry);
+            }
+            entry.cell = cell;
+            enterCell(entry);
+        }
+        entry.moved = detection;
+        movers.add(entry);
+    }
+
+    /**
+     * Removes all entries, which were not part of the current detection.
+     */
+    private void removeUnseen() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.seen != detection) {
+                dropContacts(entry);
+                leaveCell(entry);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Adds entry to the cell given by its packed cell coordinates.
+     *
+     * @param entry the entry to add
+     */
+    private void enterCell(Entry entry) {
+        int slot = slotOf(entry.cell);
+        if (slots[slot] == null) {
+            slots[slot] = new Cell(entry.cell);
+            slots[slot].entries.add(entry);
+            cellCount++;
+            if (cellCount * 2 > slots.length) {
+                grow();
+            }
+        } else {
+            slots[slot].entries.add(entry);
+        }
+    }
+
+    /**
+     * Removes entry from its cell and drops the cell, if it becomes empty.
+     *
+     * @param entry the entry to remove
+     */
+    private void leaveCell(Entry entry) {
+        int slot = slotOf(entry.cell);
+        List<Entry> cell = slots[slot].entries;
+        cell.remove(entry);
+        if (cell.isEmpty()) {
+            clearSlot(slot);
+        }
+    }
+
+    /**
+     * Empties slot and moves following cells of the same probe sequence
+     * back, so that no lookup stops at the new gap too early.
+     *
+     * @param slot the slot to empty
+     */
+    private void clearSlot(int slot) {
+        int mask = slots.length - 1;
+        int gap = slot;
+        slots[gap] = null;
+        cellCount--;
+        for (int i = (gap + 1) & mask; slots[i] != null; i = (i + 1) & mask) {
+            int home = homeOf(slots[i].key, mask);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                slots[gap] = slots[i];
+                slots[i] = null;
+                gap = i;
+            }
+        }
+    }
+
+    /**
+     * Doubles the number of slots and re-inserts all cells.
+     */
+    private void grow() {
+        Cell[] old = slots;
+        slots = new Cell[old.length * 2];
+        for (Cell cell : old) {
+            if (cell != null) {
+                slots[slotOf(cell.key)] = cell;
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding the cell with the packed coordinates key or
+     * the empty slot where it belongs.
+     *
+     * @param key the packed cell coordinates
+     * @return the index of the slot
+     */
+    private int slotOf(long key) {
+        int mask = slots.length - 1;
+        int slot = homeOf(key, mask);
+        while (slots[slot] != null && slots[slot].key != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the first slot probed for the packed cell coordinates key.
+     *
+     * @param key the packed cell coordinates
+     * @param mask the number of slots minus one
+     * @return the index of the first slot to probe
+     */
+    private static int homeOf(long key, int mask) {
+        long hash = key * MIX;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Removes all contacts of entry on both sides.
+     *
+     * @param entry the entry to drop the contacts of
+     */
+    private void dropContacts(Entry entry) {
+        for (Entry partner : entry.contacts) {
+            partner.contacts.remove(entry);
+        }
+        entry.contacts.clear();
+    }
+
+    /**
+     * Tests mover against all entries in its and the neighbouring cells.
+     *
+     * <p>A pair of two movers is only tested by the mover coming first.
+     *
+     * @param mover the moved entry
+     */
+    private void findContacts(Entry mover) {
+        long cellX = mover.cell >> 32;
+        long cellY = (int) mover.cell;
+        for (long x = cellX - 1; x <= cellX + 1; x++) {
+            for (long y = cellY - 1; y <= cellY + 1; y++) {
+                Cell cell = slots[slotOf(pack(x, y))];
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry other : cell.entries) {
+                    if (other == mover
+                            || other.moved == detection && other.order < mover.order) {
+                        continue;
+                    }
+                    double xDiff = mover.xPos - other.xPos;
+                    double yDiff = mover.yPos - other.yPos;
+                    if (xDiff * xDiff + yDiff * yDiff < squaredLimit) {
+                        mover.contacts.add(other);
+                        other.contacts.add(mover);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the coordinate of the cell containing coordinate.
+     *
+     * <p>It is clamped to the int range.
+     *
+     * @param coordinate a x or y coordinate
+     * @return the corresponding cell coordinate
+     */
+    private long cellOf(double coordinate) {
+        double cell = Math.floor(coordinate / cellSize);
+        return (long) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE - 1, cell));
+    }
+
+    /**
+     * Packs two cell coordinates into one long.
+     *
+     * @param cellX the x cell coordinate
+     * @param cellY the y cell coordinate
+     * @return the packed coordinates
+     */
+    private static long pack(long cellX, long cellY) {
+        return cellX << 32 | cellY & 0xFFFFFFFFL;
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,106 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import java.util.Arrays;
+
+/**
+ * A minimal growable list of primitive ints.
+ *
+ * <p>Detectors use it as a reusable buffer for indices, so clearing
+ * and refilling it does not allocate once it is large enough.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class IntList {
+
+    /**
+     * The initial capacity of the backing array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The backing array.
+     */
+    private int[] elements = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of valid elements.
+     */
+    private int size;
+
+    /**
+     * Creates a new empty IntList.
+     */
+    IntList() {
+        super();
+    }
+
+    /**
+     * Appends value to this list.
+     *
+     * @param value the value to append
+     */
+    void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = value;
+    }
+
+    /**
+     * Returns the element at index.
+     *
+     * @param index the index of the element
+     * @return the element at index
+     */
+    int get(int index) {
+        return elements[index];
+    }
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return the number of elements
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all elements, but keeps the backing array.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the elements in ascending order.
+     */
+    void sort() {
+        Arrays.sort(elements, 0, size);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
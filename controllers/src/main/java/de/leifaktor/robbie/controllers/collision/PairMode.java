@@ -0,0 +1,48 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+/**
+ * Defines which pairs of Collideables a CollisionDetector reports.
+ */
+public enum PairMode {
+
+    /**
+     * Every ordered pair is reported, including the pairs of a Collideable
+     * with itself. A collision between a and b is reported as (a,b) and as
+     * (b,a).
+     */
+    ALL_ORDERED,
+
+    /**
+     * Every collision between two distinct Collideables is reported once.
+     *
+     * <p>The pair is passed to the CollisionHandler registered for its
+     * orientation, if there is one, and to the one registered for the
+     * swapped orientation otherwise.
+     */
+    DISTINCT_UNORDERED
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
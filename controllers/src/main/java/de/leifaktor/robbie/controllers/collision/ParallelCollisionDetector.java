@@ -0,0 +1,257 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A CollisionDetector spreading the narrow phase over a ForkJoinPool.
+ *
+ * <p>The positions are hashed into a uniform grid like in
+ * {@link GridCollisionDetector}. The Collideables are then split into chunks
+ * of consecutive indices, which the workers of the pool check for contacts
+ * in parallel. Every chunk collects its contacts in its own buffer.
+ *
+ * <p>The CollisionHandlers are called afterwards on the thread calling
+ * {@link #doDetection(Collection)}, chunk by chunk in index order. Hence
+ * they need not be thread-safe and are called in the same order as by
+ * {@link CollisionDetectorImpl}.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class ParallelCollisionDetector extends AbstractCollisionDetector {
+
+    /**
+     * The number of Collideables checked by one task.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * The pool running the checks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The snapshot of the current detection.
+     */
+    private final PositionSnapshot snapshot = new PositionSnapshot();
+
+    /**
+     * The grid of the current detection.
+     */
+    private final UniformGrid grid;
+
+    /**
+     * The buffers of the chunks; they are reused between detections.
+     */
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /**
+     * The buffers of a chunk of Collideables.
+     */
+    private static final class Chunk {
+
+        /**
+         * The indices of the colliding pairs, two ints per contact.
+         */
+        private final IntList contacts = new IntList();
+
+        /**
+         * The buffer for the candidates of one Collideable.
+         */
+        private final IntList candidates = new IntList();
+
+        /**
+         * Creates a new Chunk.
+         */
+        Chunk() {
+            super();
+        }
+
+    }
+
+    /**
+     * Checks a range of chunks, splitting it until a single chunk is left.
+     */
+    private final class CheckTask extends RecursiveAction {
+
+        /**
+         * Needed for possible serialization.
+         */
+        private static final long serialVersionUID = 0x3b1cd1e5a2d0f4a7L;
+
+        /**
+         * The first chunk to check.
+         */
+        private final int from;
+
+        /**
+         * The first chunk not to check.
+         */
+        private final int to;
+
+        /**
+         * Creates a new CheckTask.
+         *
+         * @param from the first chunk to check
+         * @param to the first chunk not to check
+         */
+        CheckTask(int from, int to) {
+            super();
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                check(from);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CheckTask(from, middle), new CheckTask(middle, to));
+            }
+        }
+
+    }
+
+    /**
+     * Creates a new ParallelCollisionDetector reporting all ordered pairs.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pool the ForkJoinPool to run the checks in
+     * @throws NullPointerException if provider or pool is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public ParallelCollisionDetector(
+            double limit, CollisionHandlerProvider provider, ForkJoinPool pool) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, PairMode.ALL_ORDERED, pool);
+    }
+
+    /**
+     * Creates a new ParallelCollisionDetector reporting the pairs given by pairMode.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @param pool the ForkJoinPool to run the checks in
+     * @throws NullPointerException if provider, pairMode or pool is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public ParallelCollisionDetector(double limit, CollisionHandlerProvider provider,
+                                     PairMode pairMode, ForkJoinPool pool) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, pairMode, pool);
+    }
+
+    /**
+     * Creates a new ParallelCollisionDetector reporting the pairs given by pairMode
+     * and comparing limit as given by limitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param limitMode what limit is compared to
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @param pool the ForkJoinPool to run the checks in
+     * @throws NullPointerException if limitMode, provider, pairMode or pool is null
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public ParallelCollisionDetector(double limit, LimitMode limitMode,
+                                     CollisionHandlerProvider provider, PairMode pairMode,
+                                     ForkJoinPool pool) {
+        super(limit, limitMode, provider, pairMode);
+        this.pool = Objects.requireNonNull(pool);
+        grid = new UniformGrid(reach() * UniformGrid.CELL_SLACK);
+    }
+
+    @Override
+    protected void detect(Collection<? extends Collideable> collideables) {
+        snapshot.take(collideables);
+        try {
+            grid.build(snapshot);
+            int chunkCount = (snapshot.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            while (chunks.size() < chunkCount) {
+                chunks.add(new Chunk());
+            }
+            if (chunkCount == 1) {
+                check(0);
+            } else if (chunkCount > 1) {
+                pool.invoke(new CheckTask(0, chunkCount));
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                IntList contacts = chunks.get(c).contacts;
+                for (int k = 0; k < contacts.size(); k += 2) {
+                    collide(snapshot.get(contacts.get(k)), snapshot.get(contacts.get(k + 1)));
+                }
+            }
+        } finally {
+            snapshot.release();
+        }
+    }
+
+    /**
+     * Collects the contacts of the Collideables in a chunk.
+     *
+     * @param chunkIndex the index of the chunk
+     */
+    private void check(int chunkIndex) {
+        Chunk chunk = chunks.get(chunkIndex);
+        chunk.contacts.clear();
+        int end = Math.min(snapshot.size(), (chunkIndex + 1) * CHUNK_SIZE);
+        for (int i = chunkIndex * CHUNK_SIZE; i < end; i++) {
+            chunk.candidates.clear();
+            grid.gatherNeighbours(i, chunk.candidates);
+            chunk.candidates.sort();
+            int first = firstPartner(i);
+            for (int k = 0; k < chunk.candidates.size(); k++) {
+                int j = chunk.candidates.get(k);
+                if (j >= first && snapshot.distance(i, j) < squaredLimit) {
+                    chunk.contacts.add(i);
+                    chunk.contacts.add(j);
+                }
+            }
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
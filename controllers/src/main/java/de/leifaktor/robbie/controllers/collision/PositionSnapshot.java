@@ -0,0 +1,205 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.DoublePosition;
+import de.leifaktor.robbie.api.controllers.collision.PositionStore;
+import de.leifaktor.robbie.api.controllers.collision.StoredCollideable;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A reusable snapshot of Collideables and their positions.
+ *
+ * <p>The positions are extracted once per detection into parallel primitive
+ * arrays, so detectors can compare them by index without calling
+ * {@link Collideable#getPosition()} for every candidate pair.
+ * The arrays are only reallocated, if the number of Collideables grows.
+ *
+ * <p>The coordinates of {@link StoredCollideable}s are read directly from
+ * their {@link PositionStore}, so taking a snapshot of them does not
+ * allocate any DoublePositions.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class PositionSnapshot {
+
+    /**
+     * The initial capacity of the arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The Collideables of the snapshot in iteration order.
+     */
+    private Collideable[] collideables = new Collideable[INITIAL_CAPACITY];
+
+    /**
+     * The x coordinates; xs[i] belongs to collideables[i].
+     */
+    private double[] xs = new double[INITIAL_CAPACITY];
+
+    /**
+     * The y coordinates; ys[i] belongs to collideables[i].
+     */
+    private double[] ys = new double[INITIAL_CAPACITY];
+
+    /**
+     * The number of valid entries.
+     */
+    private int size;
+
+    /**
+     * Creates a new empty PositionSnapshot.
+     */
+    PositionSnapshot() {
+        super();
+    }
+
+    /**
+     * Replaces the content of this snapshot with collideables.
+     *
+     * @param source the Collideables to take a snapshot of
+     * @throws NullPointerException if source is or contains null
+     */
+    void take(Collection<? extends Collideable> source) {
+        ensureCapacity(source.size());
+        int index = 0;
+        for (Collideable collideable : source) {
+            if (collideable instanceof StoredCollideable) {
+                StoredCollideable stored = (StoredCollideable) collideable;
+                PositionStore store = stored.getPositionStore();
+                int id = stored.getPositionId();
+                xs[index] = store.getX(id);
+                ys[index] = store.getY(id);
+            } else {
+                DoublePosition position = collideable.getPosition();
+                xs[index] = position.getX();
+                ys[index] = position.getY();
+            }
+            collideables[index] = collideable;
+            index++;
+        }
+        size = index;
+    }
+
+    /**
+     * Drops the references to the Collideables of the last snapshot.
+     *
+     * <p>The arrays are kept for the next snapshot.
+     */
+    void release() {
+        Arrays.fill(collideables, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Grows the arrays, if they cannot hold capacity entries.
+     *
+     * @param capacity the number of entries needed
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > collideables.length) {
+            int newCapacity = Math.max(capacity, collideables.length * 2);
+            collideables = Arrays.copyOf(collideables, newCapacity);
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+        }
+    }
+
+    /**
+     * Returns the number of Collideables in this snapshot.
+     *
+     * @return the number of Collideables
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index-th Collideable.
+     *
+     * @param index the index of the Collideable
+     * @return the index-th Collideable
+     */
+    Collideable get(int index) {
+        return collideables[index];
+    }
+
+    /**
+     * Returns the x coordinate of the index-th Collideable.
+     *
+     * @param index the index of the Collideable
+     * @return its x coordinate
+     */
+    double getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Returns the y coordinate of the index-th Collideable.
+     *
+     * @param index the index of the Collideable
+     * @return its y coordinate
+     */
+    double getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Returns the squared distance between the i-th and the j-th Collideable.
+     *
+     * <p>It is computed exactly like {@link DoublePosition#squaredDistanceTo(DoublePosition)}.
+     *
+     * @param i the index of the first Collideable
+     * @param j the index of the second Collideable
+     * @return the squared euclidean distance of their positions
+     */
+    double distance(int i, int j) {
+        double xDiff = xs[i] - xs[j];
+        double yDiff = ys[i] - ys[j];
+        return xDiff * xDiff + yDiff * yDiff;
+    }
+
+    /**
+     * Writes the squared distances between the i-th Collideable and the
+     * Collideables from from (inclusive) to to (exclusive) into distances.
+     *
+     * <p>The distance to the j-th Collideable is written to
+     * {@code distances[j - from]}.
+     *
+     * @param kernel the DistanceKernel computing the distances
+     * @param i the index of the first Collideable
+     * @param from the index of the first partner
+     * @param to the index after the last partner
+     * @param distances the array to write the distances to
+     */
+    void distances(DistanceKernel kernel, int i, int from, int to, double[] distances) {
+        kernel.distances(xs[i], ys[i], xs, ys, from, to, distances);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,57 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+/**
+ * A DistanceKernel computing one distance after the other.
+ *
+ * <p>The loop only reads and writes consecutive array elements, so the
+ * JIT can vectorize it on its own.
+ */
+final class ScalarDistanceKernel implements DistanceKernel {
+
+    /**
+     * The only instance, since this class has no state.
+     */
+    static final ScalarDistanceKernel INSTANCE = new ScalarDistanceKernel();
+
+    /**
+     * Private constructor, since there is only one instance.
+     */
+    private ScalarDistanceKernel() {
+        super();
+    }
+
+    @Override
+    public void distances(double x, double y, double[] xs, double[] ys, int from, int to,
+                          double[] distances) {
+        for (int j = from; j < to; j++) {
+            double xDiff = x - xs[j];
+            double yDiff = y - ys[j];
+            distances[j - from] = xDiff * xDiff + yDiff * yDiff;
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,73 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandler;
+
+import java.util.Objects;
+
+/**
+ * A CollisionHandler passing its arguments swapped to another CollisionHandler.
+ *
+ * <p>It allows a CollisionHandler registered for (W, V) to handle
+ * collisions of (V, W).
+ *
+ * @param <V> the type of the first Collideable this handles
+ * @param <W> the type of the second Collideable this handles
+ */
+final class SwappedCollisionHandler<V extends Collideable, W extends Collideable>
+        implements CollisionHandler<V, W> {
+
+    /**
+     * The CollisionHandler to delegate to.
+     */
+    private final CollisionHandler<W, V> delegate;
+
+    /**
+     * Creates a new SwappedCollisionHandler.
+     *
+     * @param delegate the CollisionHandler to delegate to
+     * @throws NullPointerException if delegate is null
+     */
+    SwappedCollisionHandler(CollisionHandler<W, V> delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    /**
+     * Returns the CollisionHandler this delegates to.
+     *
+     * @return the CollisionHandler for the swapped orientation
+     */
+    CollisionHandler<W, V> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void collisionHappened(V c1, W c2) {
+        delegate.collisionHappened(c2, c1);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
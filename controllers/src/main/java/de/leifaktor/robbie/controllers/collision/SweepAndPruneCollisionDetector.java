@@ -0,0 +1,274 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A CollisionDetector using sweep and prune along the x axis as broad phase.
+ *
+ * <p>The Collideables are kept sorted by their x coordinate across
+ * detections. Since they usually move only a little between two detections,
+ * the order is nearly sorted and restored by insertion sort in roughly
+ * linear time. Afterwards only the pairs whose x coordinates differ by
+ * less than the reach of the limit are checked.
+ *
+ * <p>This works well when the Collideables are spread along the x axis,
+ * like in long corridors. If they are spread along the y axis instead,
+ * it degrades to comparing every pair.
+ *
+ * <p>For a collection of distinct Collideables the detected pairs are the
+ * same as those of {@link CollisionDetectorImpl}, but the CollisionHandlers
+ * are called in the order of the sweep.
+ * In {@link PairMode#DISTINCT_UNORDERED} the Collideable coming first in the
+ * collection is passed first. Collideables are identified by reference,
+ * so one contained twice in a collection is only checked once, while
+ * CollisionDetectorImpl checks each occurrence.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class SweepAndPruneCollisionDetector extends AbstractCollisionDetector {
+
+    /**
+     * The snapshot of the current detection.
+     */
+    private final PositionSnapshot snapshot = new PositionSnapshot();
+
+    /**
+     * The slots of all known Collideables.
+     */
+    private final Map<Collideable, Slot> slots = new IdentityHashMap<>();
+
+    /**
+     * The slots sorted by the x coordinate of the previous detection.
+     */
+    private Slot[] sorted = new Slot[0];
+
+    /**
+     * The number of valid entries in sorted.
+     */
+    private int sortedSize;
+
+    /**
+     * The number of the current detection.
+     */
+    private long detection;
+
+    /**
+     * The place of a Collideable in the sweep order.
+     */
+    private static final class Slot {
+
+        /**
+         * The index of the Collideable in the current snapshot.
+         */
+        private int index;
+
+        /**
+         * The number of the last detection the Collideable was part of.
+         */
+        private long seen;
+
+        /**
+         * Creates a new Slot.
+         */
+        Slot() {
+            super();
+        }
+
+    }
+
+    /**
+     * Creates a new SweepAndPruneCollisionDetector reporting all ordered pairs.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @throws NullPointerException if provider is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public SweepAndPruneCollisionDetector(double limit, CollisionHandlerProvider provider) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, PairMode.ALL_ORDERED);
+    }
+
+    /**
+     * Creates a new SweepAndPruneCollisionDetector reporting the pairs given by pairMode.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @throws NullPointerException if provider or pairMode is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public SweepAndPruneCollisionDetector(
+            double limit, CollisionHandlerProvider provider, PairMode pairMode) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, pairMode);
+    }
+
+    /**
+     * Creates a new SweepAndPruneCollisionDetector reporting the pairs given by pairMode
+     * and comparing limit as given by limitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param limitMode what limit is compared to
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @throws NullPointerException if limitMode, provider or pairMode is null
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public SweepAndPruneCollisionDetector(double limit, LimitMode limitMode,
+            CollisionHandlerProvider provider, PairMode pairMode) {
+        super(limit, limitMode, provider, pairMode);
+    }
+
+    @Override
+    protected void detect(Collection<? extends Collideable> collideables) {
+        snapshot.take(collideables);
+        try {
+            updateOrder();
+            sort();
+            sweep();
+        } finally {
+            snapshot.release();
+        }
+    }
+
+    /**
+     * Brings the sweep order up to date with the snapshot.
+     *
+     * <p>Removed Collideables are dropped, the remaining ones keep their
+     * order and new ones are appended.
+     */
+    private void updateOrder() {
+        detection++;
+        int seenCount = 0;
+        int size = snapshot.size();
+        if (sorted.length < size) {
+            sorted = Arrays.copyOf(sorted, Math.max(size, sorted.length * 2));
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Slot slot = slots.get(snapshot.get(i));
+            if (slot != null && slot.seen != detection) {
+                slot.index = i;
+                slot.seen = detection;
+                seenCount++;
+            }
+        }
+        for (int k = 0; k < sortedSize; k++) {
+            Slot slot = sorted[k];
+            if (slot.seen == detection) {
+                sorted[kept++] = slot;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            Collideable collideable = snapshot.get(i);
+            if (!slots.containsKey(collideable)) {
+                Slot slot = new Slot();
+                slot.index = i;
+                slot.seen = detection;
+                slots.put(collideable, slot);
+                sorted[kept++] = slot;
+                seenCount++;
+            }
+        }
+        if (kept < sortedSize) {
+            Arrays.fill(sorted, kept, sortedSize, null);
+        }
+        sortedSize = kept;
+        if (slots.size() > seenCount) {
+            Iterator<Slot> iterator = slots.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().seen != detection) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts the slots by the current x coordinates using insertion sort.
+     */
+    private void sort() {
+        for (int k = 1; k < sortedSize; k++) {
+            Slot slot = sorted[k];
+            double xPos = snapshot.getX(slot.index);
+            int l = k - 1;
+            while (l >= 0 && Double.compare(snapshot.getX(sorted[l].index), xPos) > 0) {
+                sorted[l + 1] = sorted[l];
+                l--;
+            }
+            sorted[l + 1] = slot;
+        }
+    }
+
+    /**
+     * Checks all pairs whose x coordinates are close enough to collide.
+     */
+    private void sweep() {
+        boolean allOrdered = pairMode == PairMode.ALL_ORDERED;
+        for (int k = 0; k < sortedSize; k++) {
+            int i = sorted[k].index;
+            if (allOrdered && snapshot.distance(i, i) < squaredLimit) {
+                collide(snapshot.get(i), snapshot.get(i));
+            }
+            double xPos = snapshot.getX(i);
+            for (int l = k + 1; l < sortedSize; l++) {
+                int j = sorted[l].index;
+                double xDiff = snapshot.getX(j) - xPos;
+                if (!(xDiff * xDiff < squaredLimit)) {
+                    break;
+                }
+                if (snapshot.distance(i, j) < squaredLimit) {
+                    int first = Math.min(i, j);
+                    int second = Math.max(i, j);
+                    collide(snapshot.get(first), snapshot.get(second));
+                    if (allOrdered) {
+                        collide(snapshot.get(second), snapshot.get(first));
+                    }
+                }
+            }
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,309 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.api.controllers.collision.DoublePosition;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A limit based CollisionDetector checking the whole motion since the
+ * previous detection.
+ *
+ * <p>Every Collideable is assumed to have moved on a straight line from its
+ * position in the previous detection to its current one. Two Collideables
+ * collide if the distance of their positions falls below the limit at any
+ * time of this motion, not only at its end. This way fast Collideables do
+ * not tunnel through each other, even with long ticks.
+ *
+ * <p>Collideables, which were not part of the previous detection, are
+ * treated as if they did not move. The positions of Collideables missing
+ * in a detection are forgotten.
+ *
+ * <p>The midpoints of the motions are put into a {@link UniformGrid} as
+ * broad phase. Two Collideables can only come closer than the limit, if
+ * their midpoints are closer than the limit plus half the lengths of both
+ * motions, so the cells are as large as the limit plus the longest motion
+ * of the detection. A single fast Collideable therefore coarsens the grid
+ * for all others, but the results stay exact. The grid is only replaced,
+ * when the longest motion changes considerably.
+ *
+ * <p>The collisions are reported in the same order as if the pairs were
+ * enumerated by index like in {@link CollisionDetectorImpl}.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class SweptCollisionDetector extends AbstractCollisionDetector {
+
+    /**
+     * The initial capacity of the coordinate arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The factor a new grid's cells exceed the needed size, so a slightly
+     * longer motion in the next detection does not need a new grid.
+     */
+    private static final double GRID_HEADROOM = 2;
+
+    /**
+     * The positions of the previous detection.
+     */
+    private Map<Collideable, DoublePosition> previous = new IdentityHashMap<>();
+
+    /**
+     * The positions of the current detection.
+     */
+    private Map<Collideable, DoublePosition> current = new IdentityHashMap<>();
+
+    /**
+     * The Collideables of the current detection in iteration order.
+     */
+    private Collideable[] collideables = new Collideable[INITIAL_CAPACITY];
+
+    /**
+     * The x coordinates at the start of the motion.
+     */
+    private double[] fromXs = new double[INITIAL_CAPACITY];
+
+    /**
+     * The y coordinates at the start of the motion.
+     */
+    private double[] fromYs = new double[INITIAL_CAPACITY];
+
+    /**
+     * The x coordinates at the end of the motion.
+     */
+    private double[] toXs = new double[INITIAL_CAPACITY];
+
+    /**
+     * The y coordinates at the end of the motion.
+     */
+    private double[] toYs = new double[INITIAL_CAPACITY];
+
+    /**
+     * The x coordinates of the midpoints of the motions.
+     */
+    private double[] midXs = new double[INITIAL_CAPACITY];
+
+    /**
+     * The y coordinates of the midpoints of the motions.
+     */
+    private double[] midYs = new double[INITIAL_CAPACITY];
+
+    /**
+     * The grid over the midpoints or null before the first detection.
+     */
+    private UniformGrid grid;
+
+    /**
+     * The buffer for the candidates of one Collideable.
+     */
+    private final IntList candidates = new IntList();
+
+    /**
+     * Creates a new SweptCollisionDetector reporting all ordered pairs.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @throws NullPointerException if provider is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public SweptCollisionDetector(double limit, CollisionHandlerProvider provider) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, PairMode.ALL_ORDERED);
+    }
+
+    /**
+     * Creates a new SweptCollisionDetector reporting the pairs given by pairMode.
+     *
+     * <p>The limit is compared to squared distances, as it was before
+     * there was a LimitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @throws NullPointerException if provider or pairMode is null
+     * @throws IllegalArgumentException if limit is not positive
+     * @deprecated use the constructor taking a LimitMode, which states
+     *             what limit is compared to
+     */
+    @Deprecated
+    public SweptCollisionDetector(
+            double limit, CollisionHandlerProvider provider, PairMode pairMode) {
+        this(limit, LimitMode.SQUARED_DISTANCE, provider, pairMode);
+    }
+
+    /**
+     * Creates a new SweptCollisionDetector reporting the pairs given by pairMode
+     * and comparing limit as given by limitMode.
+     *
+     * @param limit the threshold for detecting a collision
+     * @param limitMode what limit is compared to
+     * @param provider the CollisionHandlerProvider providing CollisionHandlers
+     * @param pairMode the pairs to report
+     * @throws NullPointerException if limitMode, provider or pairMode is null
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public SweptCollisionDetector(double limit, LimitMode limitMode,
+            CollisionHandlerProvider provider, PairMode pairMode) {
+        super(limit, limitMode, provider, pairMode);
+    }
+
+    @Override
+    protected void detect(Collection<? extends Collideable> collideables) {
+        int size = take(collideables);
+        try {
+            buildGrid(size);
+            for (int i = 0; i < size; i++) {
+                candidates.clear();
+                grid.gatherNeighbours(i, candidates);
+                candidates.sort();
+                int first = firstPartner(i);
+                for (int k = 0; k < candidates.size(); k++) {
+                    int j = candidates.get(k);
+                    if (j >= first && closestDistance(i, j) < squaredLimit) {
+                        collide(this.collideables[i], this.collideables[j]);
+                    }
+                }
+            }
+        } finally {
+            Arrays.fill(this.collideables, 0, size, null);
+        }
+    }
+
+    /**
+     * Copies the start and end of the motions into the coordinate arrays
+     * and remembers the current positions for the next detection.
+     *
+     * @param source the Collideables of the current detection
+     * @return the number of Collideables
+     * @throws NullPointerException if source contains null
+     */
+    private int take(Collection<? extends Collideable> source) {
+        ensureCapacity(source.size());
+        current.clear();
+        int index = 0;
+        for (Collideable collideable : source) {
+            DoublePosition to = collideable.getPosition();
+            DoublePosition from = previous.get(collideable);
+            if (from == null) {
+                from = to;
+            }
+            collideables[index] = collideable;
+            fromXs[index] = from.getX();
+            fromYs[index] = from.getY();
+            toXs[index] = to.getX();
+            toYs[index] = to.getY();
+            current.put(collideable, to);
+            index++;
+        }
+        Map<Collideable, DoublePosition> swap = previous;
+        previous = current;
+        current = swap;
+        current.clear();
+        return index;
+    }
+
+    /**
+     * Puts the midpoints of the motions into a grid, whose cells are at
+     * least as large as the limit plus the longest motion.
+     *
+     * @param size the number of Collideables
+     */
+    private void buildGrid(int size) {
+        double longest = 0;
+        for (int i = 0; i < size; i++) {
+            midXs[i] = (fromXs[i] + toXs[i]) / 2;
+            midYs[i] = (fromYs[i] + toYs[i]) / 2;
+            double length = Math.hypot(toXs[i] - fromXs[i], toYs[i] - fromYs[i]);
+            if (length > longest) {
+                longest = length;
+            }
+        }
+        double cellSize = (reach() + longest) * UniformGrid.CELL_SLACK;
+        if (grid == null || grid.getCellSize() < cellSize
+                || grid.getCellSize() > cellSize * GRID_HEADROOM * GRID_HEADROOM) {
+            grid = new UniformGrid(cellSize * GRID_HEADROOM);
+        }
+        grid.build(midXs, midYs, size);
+    }
+
+    /**
+     * Grows the arrays, if they cannot hold capacity entries.
+     *
+     * @param capacity the number of entries needed
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > collideables.length) {
+            int newCapacity = Math.max(capacity, collideables.length * 2);
+            collideables = Arrays.copyOf(collideables, newCapacity);
+            fromXs = Arrays.copyOf(fromXs, newCapacity);
+            fromYs = Arrays.copyOf(fromYs, newCapacity);
+            toXs = Arrays.copyOf(toXs, newCapacity);
+            toYs = Arrays.copyOf(toYs, newCapacity);
+            midXs = Arrays.copyOf(midXs, newCapacity);
+            midYs = Arrays.copyOf(midYs, newCapacity);
+        }
+    }
+
+    /**
+     * Returns the smallest squared distance between the i-th and the j-th
+     * Collideable during their motions.
+     *
+     * <p>The difference of both positions moves linearly from the
+     * difference at the start to the one at the end. The point of this
+     * segment closest to the origin gives the closest approach.
+     *
+     * @param i the index of the first Collideable
+     * @param j the index of the second Collideable
+     * @return the smallest squared euclidean distance of their positions
+     */
+    private double closestDistance(int i, int j) {
+        double startX = fromXs[i] - fromXs[j];
+        double startY = fromYs[i] - fromYs[j];
+        double moveX = toXs[i] - toXs[j] - startX;
+        double moveY = toYs[i] - toYs[j] - startY;
+        double moveSquared = moveX * moveX + moveY * moveY;
+        double time = 1;
+        if (moveSquared > 0) {
+            time = Math.max(0, Math.min(1, -(startX * moveX + startY * moveY) / moveSquared));
+        }
+        double closestX = startX + time * moveX;
+        double closestY = startY + time * moveY;
+        return closestX * closestX + closestY * closestY;
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
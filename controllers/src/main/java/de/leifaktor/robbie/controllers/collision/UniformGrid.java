@@ -0,0 +1,259 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the entries of a PositionSnapshot or over points.
+ *
+ * <p>Every entry is put into the square cell of the given size containing
+ * its position. Two entries closer than the cell size are therefore always
+ * in the same or in neighbouring cells.
+ *
+ * <p>The cells are kept in an open addressing hash table, whose cells hold
+ * the head of a linked list of entry indices threaded through an int array.
+ * All arrays are reused between builds.
+ *
+ * <p>This class is not thread-safe, but {@link #gatherNeighbours(int, IntList)}
+ * may be called concurrently once the grid has been built.
+ */
+final class UniformGrid {
+
+    /**
+     * The factor the cell size of a detector's grid exceeds the reach of its
+     * limit, so rounding errors cannot push two colliding positions into
+     * cells which are not neighbours.
+     */
+    static final double CELL_SLACK = 1.0 + 1E-9;
+
+    /**
+     * Marks an empty slot or the end of a cell list.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The minimal number of slots of the hash table.
+     */
+    private static final int MIN_SLOTS = 16;
+
+    /**
+     * Multiplier for spreading cell coordinates over the slots.
+     */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The edge length of a cell.
+     */
+    private final double cellSize;
+
+    /**
+     * The x cell coordinate of every entry.
+     */
+    private long[] cellXs = new long[0];
+
+    /**
+     * The y cell coordinate of every entry.
+     */
+    private long[] cellYs = new long[0];
+
+    /**
+     * The index of the next entry in the same cell or NONE.
+     */
+    private int[] next = new int[0];
+
+    /**
+     * The x cell coordinates of the slots.
+     */
+    private long[] slotXs = new long[0];
+
+    /**
+     * The y cell coordinates of the slots.
+     */
+    private long[] slotYs = new long[0];
+
+    /**
+     * The first entry of the cell in a slot or NONE, if the slot is empty.
+     */
+    private int[] heads = new int[0];
+
+    /**
+     * Creates a new UniformGrid.
+     *
+     * @param cellSize the edge length of a cell
+     * @throws IllegalArgumentException if cellSize is not positive
+     */
+    UniformGrid(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("The cell size must be positive.");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Returns the coordinate of the cell containing coordinate.
+     *
+     * <p>It is clamped to the int range, so the neighbours of a cell never
+     * overflow. Positions beyond it share the outermost cells, which only
+     * costs extra distance checks.
+     *
+     * @param coordinate a x or y coordinate
+     * @return the corresponding cell coordinate
+     */
+    long cellOf(double coordinate) {
+        double cell = Math.floor(coordinate / cellSize);
+        return (long) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE - 1, cell));
+    }
+
+    /**
+     * Returns the edge length of a cell.
+     *
+     * @return the cell size
+     */
+    double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Puts all entries of snapshot into their cells.
+     *
+     * <p>The entries of a cell are linked in ascending index order.
+     *
+     * @param snapshot the snapshot to build the grid for
+     */
+    void build(PositionSnapshot snapshot) {
+        int size = snapshot.size();
+        prepare(size);
+        for (int i = size - 1; i >= 0; i--) {
+            put(i, snapshot.getX(i), snapshot.getY(i));
+        }
+    }
+
+    /**
+     * Puts the first size points of xs and ys into their cells.
+     *
+     * <p>The entries of a cell are linked in ascending index order.
+     *
+     * @param xs the x coordinates of the points
+     * @param ys the y coordinates of the points
+     * @param size the number of points
+     */
+    void build(double[] xs, double[] ys, int size) {
+        prepare(size);
+        for (int i = size - 1; i >= 0; i--) {
+            put(i, xs[i], ys[i]);
+        }
+    }
+
+    /**
+     * Empties the grid and makes room for size entries.
+     *
+     * @param size the number of entries to put
+     */
+    private void prepare(int size) {
+        if (next.length < size) {
+            cellXs = new long[size];
+            cellYs = new long[size];
+            next = new int[size];
+        }
+        int slots = MIN_SLOTS;
+        while (slots < 2 * size) {
+            slots <<= 1;
+        }
+        if (heads.length != slots) {
+            slotXs = new long[slots];
+            slotYs = new long[slots];
+            heads = new int[slots];
+        }
+        Arrays.fill(heads, NONE);
+    }
+
+    /**
+     * Puts entry index into the cell containing x and y.
+     *
+     * <p>The entries have to be put in descending index order.
+     *
+     * @param index the index of the entry
+     * @param x the x coordinate of the entry
+     * @param y the y coordinate of the entry
+     */
+    private void put(int index, double x, double y) {
+        long cellX = cellOf(x);
+        long cellY = cellOf(y);
+        cellXs[index] = cellX;
+        cellYs[index] = cellY;
+        int slot = slotOf(cellX, cellY);
+        if (heads[slot] == NONE) {
+            slotXs[slot] = cellX;
+            slotYs[slot] = cellY;
+        }
+        next[index] = heads[slot];
+        heads[slot] = index;
+    }
+
+    /**
+     * Adds the indices of all entries in the cell of entry index and in
+     * the eight cells around it to out.
+     *
+     * <p>This includes index itself. The indices are sorted per cell only.
+     *
+     * @param index the index of the entry
+     * @param out the list to add the indices to
+     */
+    void gatherNeighbours(int index, IntList out) {
+        long cellX = cellXs[index];
+        long cellY = cellYs[index];
+        for (long x = cellX - 1; x <= cellX + 1; x++) {
+            for (long y = cellY - 1; y <= cellY + 1; y++) {
+                int slot = slotOf(x, y);
+                for (int entry = heads[slot]; entry != NONE; entry = next[entry]) {
+                    out.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of the given cell.
+     *
+     * <p>That is the slot already holding the cell or the empty
+     * slot where it would be inserted.
+     *
+     * @param cellX the x cell coordinate
+     * @param cellY the y cell coordinate
+     * @return the slot of the cell
+     */
+    private int slotOf(long cellX, long cellY) {
+        int mask = heads.length - 1;
+        long hash = (cellX * MIX) ^ cellY;
+        int slot = (int) (hash ^ (hash >>> 32)) * (int) MIX & mask;
+        while (heads[slot] != NONE
+                && (slotXs[slot] != cellX || slotYs[slot] != cellY)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
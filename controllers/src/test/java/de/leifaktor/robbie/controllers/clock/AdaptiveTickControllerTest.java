@@ -0,0 +1,213 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.Clock;
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+import de.leifaktor.robbie.api.controllers.clock.ClockRestorer;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the AdaptiveTickController.
+ */
+public class AdaptiveTickControllerTest {
+
+    /**
+     * The smallest tick duration in milliseconds.
+     */
+    private static final long MIN = 10L;
+
+    /**
+     * The largest tick duration in milliseconds.
+     */
+    private static final long MAX = 100L;
+
+    /**
+     * The fake current time in nanoseconds.
+     */
+    private long now;
+
+    /**
+     * The time the delegate is busy per tick, in milliseconds.
+     */
+    private long busyMillis;
+
+    /**
+     * The number of times the tick duration was set.
+     */
+    private int adjustments;
+
+    /**
+     * The controlled clock stub.
+     */
+    private ClockStub clock;
+
+    /**
+     * The controller under test.
+     */
+    private AdaptiveTickController controller;
+
+    /**
+     * A Clock only remembering its tick duration.
+     */
+    private final class ClockStub implements Clock {
+
+        /**
+         * The current tick duration in nanoseconds.
+         */
+        private long tickNanos = TimeUnit.MILLISECONDS.toNanos(MIN);
+
+        @Override
+        public void startClock() {
+        }
+
+        @Override
+        public void stopClock() {
+        }
+
+        @Override
+        public void pauseClock() {
+        }
+
+        @Override
+        public void resumeClock() {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public void setTickDuration(long duration, TimeUnit timeUnit) {
+            tickNanos = timeUnit.toNanos(duration);
+            adjustments++;
+        }
+
+        @Override
+        public long getTickDuration(TimeUnit unit) {
+            return unit.convert(tickNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public ClockListener getClockListener() {
+            return controller;
+        }
+
+        @Override
+        public ClockRestorer getClockRestorer() {
+            return (clock, exception) -> { };
+        }
+
+        @Override
+        public ClockState state() {
+            return ClockState.RUNNING;
+        }
+
+    }
+
+    /**
+     * Empty constructor.
+     */
+    public AdaptiveTickControllerTest() {
+    }
+
+    /**
+     * Creates a controller over a delegate advancing the fake time.
+     */
+    @BeforeMethod
+    public void setUp() {
+        now = 0L;
+        busyMillis = 0L;
+        adjustments = 0;
+        ClockListener busy = () -> now += TimeUnit.MILLISECONDS.toNanos(busyMillis);
+        controller = new AdaptiveTickController(busy, MIN, MAX, TimeUnit.MILLISECONDS,
+                () -> now);
+        clock = new ClockStub();
+        controller.control(clock);
+    }
+
+    /**
+     * Lets count ticks pass.
+     *
+     * @param count the number of ticks
+     */
+    private void ticks(int count) {
+        for (int i = 0; i < count; i++) {
+            controller.ticksPassed();
+        }
+    }
+
+    @Test
+    public void ticksPassed_widensUnderLoad() {
+        busyMillis = 30L;
+        ticks(AdaptiveTickController.WINDOW);
+
+        Assert.assertEquals(clock.getTickDuration(TimeUnit.MILLISECONDS), 40L);
+    }
+
+    @Test
+    public void ticksPassed_staysWithinBounds() {
+        busyMillis = 1000L;
+        ticks(AdaptiveTickController.WINDOW);
+        Assert.assertEquals(clock.getTickDuration(TimeUnit.MILLISECONDS), MAX);
+
+        busyMillis = 0L;
+        ticks(AdaptiveTickController.WINDOW * 4);
+        Assert.assertEquals(clock.getTickDuration(TimeUnit.MILLISECONDS), MIN);
+    }
+
+    @Test
+    public void ticksPassed_ignoresSmallChanges() {
+        busyMillis = 8L;
+        ticks(AdaptiveTickController.WINDOW * 4);
+
+        Assert.assertEquals(adjustments, 0);
+    }
+
+    @Test
+    public void ticksPassed_measuresPerTick() {
+        busyMillis = 30L;
+        controller.ticksPassed(3);
+
+        // The delegate was busy three times 30 ms within one call.
+        Assert.assertEquals(controller.getAverageBusyTime(TimeUnit.MILLISECONDS), 30L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void new_minLargerThanMax() {
+        new AdaptiveTickController(() -> { }, MAX, MIN, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void new_nonPositiveMin() {
+        new AdaptiveTickController(() -> { }, 0L, MAX, TimeUnit.MILLISECONDS);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -25,9 +25,12 @@ package de.leifaktor.robbie.controllers.clock;
 import de.leifaktor.robbie.api.controllers.clock.Clock;
 import de.leifaktor.robbie.api.controllers.clock.Clock.ClockFactory;
 import de.leifaktor.robbie.api.controllers.clock.ClockFactoryTest;
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
 import de.leifaktor.robbie.api.controllers.clock.ClockRestorer;
 import de.leifaktor.robbie.api.controllers.clock.ClockTest;
+import de.leifaktor.robbie.api.controllers.clock.TicksTooFastException;
 
+import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Factory;
@@ -38,12 +41,19 @@ import rex.palace.sequentialexecutor.TimeController;
 import rex.palace.sequentialexecutor.TimeControllers;
 import rex.palace.testhelp.ArgumentConverter;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
 
@@ -177,7 +187,7 @@ public class ClockImplTest {
         new_nullExecutorService(duration, unit);
     }
 
-    @Test(expectedExceptions = IllegalStateException.class)
+    @Test
     public void setTickDuration_StartedClock() {
         Clock clock = new ClockImpl(
                 sses, 10L, TimeUnit.MILLISECONDS, restorer, () -> {});
@@ -185,6 +195,285 @@ public class ClockImplTest {
         clock.startClock();
 
         clock.setTickDuration(5L, TimeUnit.SECONDS);
+
+        Assert.assertEquals(clock.getTickDuration(TimeUnit.SECONDS), 5L);
+        Assert.assertEquals(clock.state(), Clock.ClockState.RUNNING);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void setTickDuration_StartedClockZero() {
+        Clock clock = new ClockImpl(
+                sses, 10L, TimeUnit.MILLISECONDS, restorer, () -> {});
+
+        clock.startClock();
+
+        clock.setTickDuration(0L, TimeUnit.SECONDS);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void setTickDuration_PausedClockZero() {
+        Clock clock = new ClockImpl(
+                sses, 10L, TimeUnit.MILLISECONDS, restorer, () -> {});
+
+        clock.startClock();
+        clock.pauseClock();
+
+        clock.setTickDuration(0L, TimeUnit.SECONDS);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void setTickDuration_StoppedClockZero() {
+        Clock clock = new ClockImpl(
+                sses, 10L, TimeUnit.MILLISECONDS, restorer, () -> {});
+
+        clock.setTickDuration(0L, TimeUnit.SECONDS);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void new_zeroTickDuration() {
+        new ClockImpl(sses, 0L, TimeUnit.MILLISECONDS, restorer, () -> {});
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void new_negativeMaxCatchUpTicks() {
+        new ClockImpl(sses, 10L, TimeUnit.MILLISECONDS, restorer, () -> {}, -1);
+    }
+
+    @Test(timeOut = 10000L)
+    public void startClock_slowTickEventHandlerReportsTicksTooFast() throws Exception {
+        ExecutorService listenerExecutor = Executors.newSingleThreadExecutor();
+        TickEventHandler handler = new TickEventHandlerImpl(listenerExecutor,
+                Collections.singletonList(() -> {
+                    try {
+                        Thread.sleep(50L);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        CompletableFuture<TicksTooFastException> reported = new CompletableFuture<>();
+        Clock clock = new ClockImpl(Executors.newSingleThreadScheduledExecutor(),
+                1L, TimeUnit.MILLISECONDS, restorer, handler, 0, OverrunPolicy.SKIP,
+                reported::complete);
+
+        clock.startClock();
+        try {
+            Assert.assertTrue(reported.get(5L, TimeUnit.SECONDS)
+                    instanceof TicksTooFastException);
+        } finally {
+            clock.stopClock();
+            clock.shutdown();
+            handler.shutdown(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Creates a clock with a tick duration of 10 ms scheduled in the virtual
+     * time of executor.
+     *
+     * @param executor the executor to schedule the clock in
+     * @param listener the listener to notify
+     * @param maxCatchUpTicks the maximum number of catch-up ticks or 0
+     * @param policy the OverrunPolicy to use
+     * @return a new clock
+     */
+    private ClockImpl manualClock(ManualScheduledExecutor executor, ClockListener listener,
+            int maxCatchUpTicks, OverrunPolicy policy) {
+        return new ClockImpl(executor, 10L, TimeUnit.MILLISECONDS, restorer, listener,
+                maxCatchUpTicks, policy, overrun -> { }, executor::nanoTime);
+    }
+
+    /**
+     * Creates a TickEventHandler recording the elapsed ticks it gets, which
+     * is not done after a tick until done is set again.
+     *
+     * @param passed the list to add the elapsed ticks to
+     * @param done whether the previous tick is done
+     * @return a new TickEventHandler
+     */
+    private static TickEventHandler steppedHandler(List<Integer> passed, boolean[] done) {
+        return new TickEventHandler() {
+            @Override
+            public void run() {
+                ticksPassed(1);
+            }
+
+            @Override
+            public void ticksPassed(int elapsedTicks) {
+                passed.add(elapsedTicks);
+                done[0] = false;
+            }
+
+            @Override
+            public boolean areDone() {
+                return done[0];
+            }
+
+            @Override
+            public boolean shutdown(long timeOutDuration, TimeUnit timeOutUnit) {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Converts milliseconds to nanoseconds.
+     *
+     * @param times the times in milliseconds
+     * @return the times in nanoseconds
+     */
+    private static List<Long> millis(long... times) {
+        return LongStream.of(times).map(TimeUnit.MILLISECONDS::toNanos)
+                .boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void setTickDuration_withinTickKeepsNextTick() {
+        ManualScheduledExecutor executor = new ManualScheduledExecutor();
+        List<Long> ticks = new ArrayList<>();
+        AtomicReference<Clock> clock = new AtomicReference<>();
+        clock.set(manualClock(executor, () -> {
+            ticks.add(executor.nanoTime());
+            if (ticks.size() == 3) {
+                clock.get().setTickDuration(20L, TimeUnit.MILLISECONDS);
+            }
+        }, 0, OverrunPolicy.SKIP));
+
+        clock.get().startClock();
+        executor.advance(90L, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(ticks, millis(0L, 10L, 20L, 30L, 50L, 70L, 90L));
+    }
+
+    @Test
+    public void setTickDuration_betweenTicksKeepsNextTick() {
+        ManualScheduledExecutor executor = new ManualScheduledExecutor();
+        List<Long> ticks = new ArrayList<>();
+        Clock clock = manualClock(
+                executor, () -> ticks.add(executor.nanoTime()), 0, OverrunPolicy.SKIP);
+
+        clock.startClock();
+        executor.advance(25L, TimeUnit.MILLISECONDS);
+        clock.setTickDuration(5L, TimeUnit.MILLISECONDS);
+        executor.advance(20L, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(ticks, millis(0L, 10L, 20L, 30L, 35L, 40L, 45L));
+    }
+
+    @Test
+    public void pauseClock_afterRescheduleWithinTickStopsTicking() {
+        ManualScheduledExecutor executor = new ManualScheduledExecutor();
+        List<Long> ticks = new ArrayList<>();
+        AtomicReference<Clock> clock = new AtomicReference<>();
+        clock.set(manualClock(executor, () -> {
+            ticks.add(executor.nanoTime());
+            clock.get().setTickDuration(10L, TimeUnit.MILLISECONDS);
+        }, 0, OverrunPolicy.SKIP));
+
+        clock.get().startClock();
+        executor.advance(25L, TimeUnit.MILLISECONDS);
+        clock.get().pauseClock();
+        executor.advance(100L, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(ticks, millis(0L, 10L, 20L));
+    }
+
+    @Test
+    public void setTickDuration_keepsCoalescedTicks() {
+        ManualScheduledExecutor executor = new ManualScheduledExecutor();
+        List<Integer> passed = new ArrayList<>();
+        boolean[] done = { true };
+        Clock clock = manualClock(
+                executor, steppedHandler(passed, done), 0, OverrunPolicy.COALESCE);
+
+        clock.startClock();
+        executor.advance(25L, TimeUnit.MILLISECONDS);
+        clock.setTickDuration(20L, TimeUnit.MILLISECONDS);
+        done[0] = true;
+        executor.advance(5L, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(passed, Arrays.asList(1, 3));
+    }
+
+    @Test
+    public void setTickDuration_fixedTimestepKeepsAccumulatedTime() {
+        ManualScheduledExecutor executor = new ManualScheduledExecutor();
+        List<Integer> passed = new ArrayList<>();
+        Clock clock = manualClock(executor, new ClockListener() {
+            @Override
+            public void ticksPassed() {
+                ticksPassed(1);
+            }
+
+            @Override
+            public void ticksPassed(int elapsedTicks) {
+                passed.add(elapsedTicks);
+            }
+        }, 5, OverrunPolicy.SKIP);
+
+        clock.startClock();
+        executor.advance(25L, TimeUnit.MILLISECONDS);
+        clock.setTickDuration(20L, TimeUnit.MILLISECONDS);
+        executor.advance(65L, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(passed, Arrays.asList(1, 1, 1, 1, 1, 1));
+    }
+
+    @Test
+    public void startClock_overrunReportedToHandlerOnly() {
+        ManualScheduledExecutor executor = new ManualScheduledExecutor();
+        List<Throwable> failures = new ArrayList<>();
+        List<TicksTooFastException> overruns = new ArrayList<>();
+        List<Integer> passed = new ArrayList<>();
+        boolean[] done = { true };
+        Clock clock = new ClockImpl(executor, 10L, TimeUnit.MILLISECONDS,
+                (c, ex) -> failures.add(ex), steppedHandler(passed, done),
+                0, OverrunPolicy.SKIP, overruns::add, executor::nanoTime);
+
+        clock.startClock();
+        executor.advance(35L, TimeUnit.MILLISECONDS);
+        done[0] = true;
+        executor.advance(10L, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(overruns.size(), 1);
+        Assert.assertTrue(failures.isEmpty());
+        Assert.assertEquals(passed, Arrays.asList(1, 1));
+        Assert.assertEquals(clock.state(), Clock.ClockState.RUNNING);
+    }
+
+    @Test
+    public void resumeClock_keepsCoalescedTicks() {
+        ManualScheduledExecutor executor = new ManualScheduledExecutor();
+        List<Integer> passed = new ArrayList<>();
+        boolean[] done = { true };
+        Clock clock = manualClock(
+                executor, steppedHandler(passed, done), 0, OverrunPolicy.COALESCE);
+
+        clock.startClock();
+        executor.advance(25L, TimeUnit.MILLISECONDS);
+        clock.pauseClock();
+        done[0] = true;
+        clock.resumeClock();
+        executor.advance(0L, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(passed, Arrays.asList(1, 3));
+    }
+
+    @Test
+    public void startClock_fixedTimestepDropsSkippedTime() {
+        for (OverrunPolicy policy
+                : Arrays.asList(OverrunPolicy.SKIP, OverrunPolicy.SLOW_DOWN)) {
+            ManualScheduledExecutor executor = new ManualScheduledExecutor();
+            List<Integer> passed = new ArrayList<>();
+            boolean[] done = { true };
+            Clock clock = manualClock(executor, steppedHandler(passed, done), 5, policy);
+
+            clock.startClock();
+            executor.advance(25L, TimeUnit.MILLISECONDS);
+            done[0] = true;
+            executor.advance(10L, TimeUnit.MILLISECONDS);
+
+            Assert.assertEquals(passed, Arrays.asList(1, 1), policy.name());
+        }
     }
 
 }
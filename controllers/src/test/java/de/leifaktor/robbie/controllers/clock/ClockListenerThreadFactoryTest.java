@@ -206,6 +206,29 @@ public class ClockListenerThreadFactoryTest {
         throw handler.uncaughtException;
     }
 
+    @Test
+    public void virtual_namedDaemon() {
+        runnableStub.name = "stub";
+        Thread thread = ClockListenerThreadFactory.virtual(handler).newThread(runnableStub);
+
+        Assert.assertTrue(thread.getName().startsWith("ClockListenerThread-"));
+        Assert.assertTrue(thread.getName().endsWith("-0-stub"));
+        Assert.assertTrue(thread.isDaemon());
+        Assert.assertSame(thread.getUncaughtExceptionHandler(), handler);
+    }
+
+    @Test(expectedExceptions = ClassCastException.class)
+    public void virtual_handlerIsCalled() throws Throwable {
+        runnableStub.exception = new ClassCastException();
+        Thread thread = ClockListenerThreadFactory.virtual(handler).newThread(runnableStub);
+        thread.start();
+        thread.join();
+
+        Assert.assertSame(handler.throwingThread, thread);
+
+        throw handler.uncaughtException;
+    }
+
 }
 
 /* vim:set shiftwidth=4 softtabstop=4 expandtab: */
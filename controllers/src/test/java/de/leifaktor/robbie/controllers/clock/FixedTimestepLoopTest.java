@@ -0,0 +1,213 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the FixedTimestepLoop.
+ */
+public class FixedTimestepLoopTest {
+
+    /**
+     * The length of a tick in nanoseconds.
+     */
+    private static final long TICK = 1000L;
+
+    /**
+     * The fake current time.
+     */
+    private long now;
+
+    /**
+     * The elapsed ticks handed to the listener, per call.
+     */
+    private List<Integer> calls;
+
+    /**
+     * Records the elapsed ticks it gets.
+     */
+    private ClockListener listener;
+
+    /**
+     * Empty constructor.
+     */
+    public FixedTimestepLoopTest() {
+    }
+
+    /**
+     * Resets the fake time and the recorded calls.
+     */
+    @BeforeMethod
+    public void setUp() {
+        now = 0L;
+        calls = new ArrayList<>();
+        listener = new ClockListener() {
+            @Override
+            public void ticksPassed() {
+                calls.add(1);
+            }
+
+            @Override
+            public void ticksPassed(int elapsedTicks) {
+                calls.add(elapsedTicks);
+            }
+        };
+    }
+
+    /**
+     * Creates a loop reading the fake time.
+     *
+     * @param maxCatchUpTicks the maximum number of ticks per call
+     * @return a new loop
+     */
+    private FixedTimestepLoop loop(int maxCatchUpTicks) {
+        return new FixedTimestepLoop(listener, TICK, maxCatchUpTicks, () -> now);
+    }
+
+    @Test
+    public void run_firstCallTicksOnce() {
+        loop(5).run();
+
+        Assert.assertEquals(calls, Arrays.asList(1));
+    }
+
+    @Test
+    public void run_onTimeTicksOncePerCall() {
+        FixedTimestepLoop loop = loop(5);
+        loop.run();
+        for (int i = 0; i < 3; i++) {
+            now += TICK;
+            loop.run();
+        }
+
+        Assert.assertEquals(calls, Arrays.asList(1, 1, 1, 1));
+    }
+
+    @Test
+    public void dropDueTicks_dropsWholeTicksKeepsPartialTick() {
+        FixedTimestepLoop loop = loop(5);
+        loop.run();
+        now += 2 * TICK + TICK / 2;
+        loop.dropDueTicks();
+        now += TICK / 2;
+        loop.run();
+
+        Assert.assertEquals(calls, Arrays.asList(1, 1));
+    }
+
+    @Test
+    public void run_lateCallPassesMissedTicks() {
+        FixedTimestepLoop loop = loop(5);
+        loop.run();
+        now += 3 * TICK;
+        loop.run();
+
+        Assert.assertEquals(calls, Arrays.asList(1, 3));
+    }
+
+    @Test
+    public void run_carriesRemainderOver() {
+        FixedTimestepLoop loop = loop(5);
+        loop.run();
+        now += TICK / 2;
+        loop.run();
+        now += TICK / 2;
+        loop.run();
+        now += TICK + TICK / 2;
+        loop.run();
+        now += TICK / 2;
+        loop.run();
+
+        Assert.assertEquals(calls, Arrays.asList(1, 1, 1, 1));
+    }
+
+    @Test
+    public void run_capsCatchUpAndDropsSurplus() {
+        FixedTimestepLoop loop = loop(2);
+        loop.run();
+        now += 10 * TICK + TICK / 2;
+        loop.run();
+        now += TICK / 2;
+        loop.run();
+
+        Assert.assertEquals(calls, Arrays.asList(1, 2, 1));
+    }
+
+    @Test
+    public void setTickNanos_keepsAccumulatedTime() {
+        FixedTimestepLoop loop = loop(5);
+        loop.run();
+        now += TICK / 2;
+        loop.run();
+        loop.setTickNanos(2 * TICK);
+        now += TICK + TICK / 2;
+        loop.run();
+        now += TICK;
+        loop.run();
+        now += TICK;
+        loop.run();
+
+        Assert.assertEquals(calls, Arrays.asList(1, 1, 1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void setTickNanos_zero() {
+        loop(1).setTickNanos(0L);
+    }
+
+    @Test
+    public void ticksPassed_defaultCallsOncePerTick() {
+        ClockListener counting = () -> calls.add(1);
+
+        counting.ticksPassed(3);
+
+        Assert.assertEquals(calls, Arrays.asList(1, 1, 1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void new_zeroTick() {
+        new FixedTimestepLoop(listener, 0L, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void new_zeroMaxCatchUpTicks() {
+        new FixedTimestepLoop(listener, TICK, 0);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void new_nullListener() {
+        new FixedTimestepLoop(null, TICK, 1);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,254 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A ScheduledExecutorService running its tasks on the calling thread in
+ * virtual time, which only passes by {@link #advance(long, TimeUnit)}.
+ *
+ * <p>Like a ScheduledThreadPoolExecutor, a periodic task is rescheduled
+ * after its execution and stops after it threw.
+ */
+final class ManualScheduledExecutor extends AbstractExecutorService
+        implements ScheduledExecutorService {
+
+    /**
+     * The scheduled tasks, ordered by due time.
+     */
+    private final PriorityQueue<Task<?>> queue = new PriorityQueue<>();
+
+    /**
+     * The current virtual time in nanoseconds.
+     */
+    private long now;
+
+    /**
+     * The number of tasks scheduled so far, breaking ties of due times.
+     */
+    private long scheduled;
+
+    /**
+     * Whether this executor has been shutdown.
+     */
+    private boolean shutdown;
+
+    /**
+     * Empty constructor.
+     */
+    ManualScheduledExecutor() {
+    }
+
+    /**
+     * Returns the current virtual time.
+     *
+     * @return the current virtual time in nanoseconds
+     */
+    long nanoTime() {
+        return now;
+    }
+
+    /**
+     * Lets time pass, running every task due meanwhile at its due time.
+     *
+     * @param duration the time to pass
+     * @param unit the unit of duration
+     */
+    void advance(long duration, TimeUnit unit) {
+        long end = now + unit.toNanos(duration);
+        Task<?> task = queue.peek();
+        while (task != null && task.time <= end) {
+            queue.poll();
+            now = Math.max(now, task.time);
+            task.run();
+            task = queue.peek();
+        }
+        now = end;
+    }
+
+    /**
+     * Queues a new task.
+     *
+     * @param task the task to queue
+     * @param <V> the result type of task
+     * @return task
+     */
+    private <V> Task<V> enqueue(Task<V> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor is shutdown.");
+        }
+        queue.add(task);
+        return task;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(new Task<>(Executors.callable(command), unit.toNanos(delay), 0L));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new Task<>(callable, unit.toNanos(delay), 0L));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay,
+            long period, TimeUnit unit) {
+        if (period <= 0L) {
+            throw new IllegalArgumentException("period must be positive.");
+        }
+        return enqueue(new Task<>(Executors.callable(command),
+                unit.toNanos(initialDelay), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay,
+            long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Runs command on the calling thread.
+     *
+     * @param command the task to run
+     */
+    @Override
+    public void execute(Runnable command) {
+        command.run();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        queue.clear();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = new ArrayList<>(queue);
+        shutdown();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return shutdown;
+    }
+
+    /**
+     * A task scheduled in virtual time.
+     *
+     * @param <V> the result type of the task
+     */
+    private final class Task<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /**
+         * The period in nanoseconds or 0, if the task runs once.
+         */
+        private final long period;
+
+        /**
+         * The position of this task among tasks due at the same time.
+         */
+        private final long sequence;
+
+        /**
+         * The time the task is due next.
+         */
+        private long time;
+
+        /**
+         * Creates a new Task.
+         *
+         * @param callable the task to run
+         * @param delay the delay of the first run in nanoseconds
+         * @param period the period in nanoseconds or 0, if the task runs once
+         */
+        Task(Callable<V> callable, long delay, long period) {
+            super(callable);
+            this.period = period;
+            this.sequence = scheduled++;
+            this.time = now + delay;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0L;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (runAndReset() && !shutdown) {
+                time += period;
+                queue.add(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            queue.remove(this);
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - now, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Task<?> task = (Task<?>) other;
+            int byTime = Long.compare(time, task.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, task.sequence);
+        }
+
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
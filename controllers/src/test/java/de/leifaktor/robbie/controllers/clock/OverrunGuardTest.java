@@ -0,0 +1,187 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.TicksTooFastException;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the OverrunGuard.
+ */
+public class OverrunGuardTest {
+
+    /**
+     * Whether the previous tick is reported done.
+     */
+    private boolean done;
+
+    /**
+     * The tick counts handed over, per listener run.
+     */
+    private List<Integer> runs;
+
+    /**
+     * The reported overruns.
+     */
+    private List<TicksTooFastException> reports;
+
+    /**
+     * The number of dropped ticks.
+     */
+    private int dropped;
+
+    /**
+     * Empty constructor.
+     */
+    public OverrunGuardTest() {
+    }
+
+    /**
+     * Resets the recorded state.
+     */
+    @BeforeMethod
+    public void setUp() {
+        done = true;
+        runs = new ArrayList<>();
+        reports = new ArrayList<>();
+        dropped = 0;
+    }
+
+    /**
+     * Creates a guard recording into this test.
+     *
+     * @param policy the policy to use
+     * @return a new OverrunGuard
+     */
+    private OverrunGuard guard(OverrunPolicy policy) {
+        return new OverrunGuard(() -> done, policy, runs::add, () -> dropped++, reports::add);
+    }
+
+    /**
+     * Runs guard count times.
+     *
+     * @param guard the guard to run
+     * @param count how often to run it
+     */
+    private static void run(OverrunGuard guard, int count) {
+        for (int i = 0; i < count; i++) {
+            guard.run();
+        }
+    }
+
+    @Test
+    public void run_inTimeHandsEveryTickOver() {
+        for (OverrunPolicy policy : OverrunPolicy.values()) {
+            setUp();
+            run(guard(policy), 3);
+
+            Assert.assertEquals(runs, Arrays.asList(1, 1, 1));
+            Assert.assertTrue(reports.isEmpty());
+        }
+    }
+
+    @Test
+    public void run_skipDropsOverrunningTicks() {
+        OverrunGuard guard = guard(OverrunPolicy.SKIP);
+        done = false;
+        run(guard, 2);
+        done = true;
+        guard.run();
+
+        Assert.assertEquals(runs, Collections.singletonList(1));
+        Assert.assertEquals(dropped, 2);
+    }
+
+    @Test
+    public void run_reportsOncePerStreak() {
+        OverrunGuard guard = guard(OverrunPolicy.SKIP);
+        done = false;
+        run(guard, 3);
+        done = true;
+        guard.run();
+        done = false;
+        guard.run();
+
+        Assert.assertEquals(reports.size(), 2);
+    }
+
+    @Test
+    public void run_coalesceHandsDroppedTicksOver() {
+        OverrunGuard guard = guard(OverrunPolicy.COALESCE);
+        done = false;
+        run(guard, 2);
+        done = true;
+        run(guard, 2);
+
+        Assert.assertEquals(runs, Arrays.asList(3, 1));
+        Assert.assertEquals(reports.size(), 1);
+        Assert.assertEquals(dropped, 0);
+    }
+
+    @Test
+    public void run_slowDownWidensAndRecovers() {
+        OverrunGuard guard = guard(OverrunPolicy.SLOW_DOWN);
+        done = false;
+        guard.run();
+        Assert.assertEquals(guard.getStride(), 2);
+
+        guard.run();
+        Assert.assertEquals(guard.getStride(), 2);
+        guard.run();
+        Assert.assertEquals(guard.getStride(), 4);
+
+        done = true;
+        run(guard, 4);
+        Assert.assertEquals(runs, Collections.singletonList(1));
+        Assert.assertEquals(guard.getStride(), 3);
+        run(guard, 3 + 2);
+        Assert.assertEquals(guard.getStride(), 1);
+        Assert.assertEquals(runs, Arrays.asList(1, 1, 1));
+        Assert.assertEquals(dropped, 9);
+    }
+
+    @Test
+    public void run_slowDownIsBounded() {
+        OverrunGuard guard = guard(OverrunPolicy.SLOW_DOWN);
+        done = false;
+        run(guard, OverrunGuard.MAX_STRIDE * 4);
+
+        Assert.assertEquals(guard.getStride(), OverrunGuard.MAX_STRIDE);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void new_nullPolicy() {
+        guard(null);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,294 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the PhasedTickEventHandler.
+ */
+public class PhasedTickEventHandlerTest {
+
+    /**
+     * The number of listeners per phase.
+     */
+    private static final int PHASE_SIZE = 8;
+
+    /**
+     * The number of phases.
+     */
+    private static final int PHASE_COUNT = 4;
+
+    /**
+     * The calls finished, per phase.
+     */
+    private AtomicInteger[] finished;
+
+    /**
+     * The number of listeners started before their previous phase finished.
+     */
+    private AtomicInteger violations;
+
+    /**
+     * The handler under test.
+     */
+    private TickEventHandler handler;
+
+    /**
+     * Empty constructor.
+     */
+    public PhasedTickEventHandlerTest() {
+    }
+
+    /**
+     * Resets the counters.
+     */
+    @BeforeMethod
+    public void setUp() {
+        finished = new AtomicInteger[PHASE_COUNT];
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            finished[i] = new AtomicInteger();
+        }
+        violations = new AtomicInteger();
+    }
+
+    /**
+     * Shuts the handler down.
+     *
+     * @throws Exception if shutting down failed
+     */
+    @AfterMethod
+    public void tearDown() throws Exception {
+        if (handler != null) {
+            handler.shutdown(1L, TimeUnit.SECONDS);
+            handler = null;
+        }
+    }
+
+    /**
+     * Creates a listener of the given phase checking the previous one finished.
+     *
+     * @param phase the phase of the listener
+     * @param ticks the number of ticks run so far, including the current one
+     * @return a new ClockListener
+     */
+    private ClockListener listener(int phase, AtomicInteger ticks) {
+        return () -> {
+            if (phase > 0 && finished[phase - 1].get() < ticks.get() * PHASE_SIZE) {
+                violations.incrementAndGet();
+            }
+            Thread.yield();
+            finished[phase].incrementAndGet();
+        };
+    }
+
+    /**
+     * Creates a handler over PHASE_COUNT phases of PHASE_SIZE listeners.
+     *
+     * @param executor the executor to run the listeners
+     * @param ticks the number of ticks run so far, including the current one
+     * @return a new handler
+     */
+    private TickEventHandler create(ExecutorService executor, AtomicInteger ticks) {
+        List<List<ClockListener>> phases = new ArrayList<>();
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            List<ClockListener> listeners = new ArrayList<>();
+            for (int i = 0; i < PHASE_SIZE; i++) {
+                listeners.add(listener(phase, ticks));
+            }
+            phases.add(listeners);
+        }
+        return new PhasedTickEventHandler(executor, phases);
+    }
+
+    /**
+     * Runs ticks ticks on the handler, checking the phase order.
+     *
+     * @param executor the executor to run the listeners
+     * @param tickCount the number of ticks to run
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void runTicks(ExecutorService executor, int tickCount) throws InterruptedException {
+        AtomicInteger ticks = new AtomicInteger();
+        handler = create(executor, ticks);
+        for (int i = 0; i < tickCount; i++) {
+            ticks.incrementAndGet();
+            handler.run();
+            TickEventHandlers.awaitDone(handler);
+        }
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            Assert.assertEquals(finished[phase].get(), tickCount * PHASE_SIZE);
+        }
+        Assert.assertEquals(violations.get(), 0);
+    }
+
+    @Test
+    public void run_phasesInOrder() throws InterruptedException {
+        runTicks(Executors.newFixedThreadPool(4), 20);
+    }
+
+    @Test
+    public void run_singleThreadRunsAllPhases() throws InterruptedException {
+        runTicks(Executors.newSingleThreadExecutor(), 5);
+    }
+
+    @Test
+    public void run_skipsEmptyPhases() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        handler = new PhasedTickEventHandler(Executors.newSingleThreadExecutor(), Arrays.asList(
+                Collections.<ClockListener>emptyList(),
+                Collections.<ClockListener>singletonList(calls::incrementAndGet),
+                Collections.<ClockListener>emptyList()));
+        handler.run();
+        TickEventHandlers.awaitDone(handler);
+
+        Assert.assertEquals(calls.get(), 1);
+    }
+
+    @Test
+    public void run_noPhasesIsDone() {
+        handler = new PhasedTickEventHandler(
+                Executors.newSingleThreadExecutor(), Collections.emptyList());
+        handler.run();
+
+        Assert.assertTrue(handler.areDone());
+    }
+
+    @Test
+    public void run_continuesAfterFailingListener() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        ClockListener failing = () -> {
+            throw new IllegalStateException("expected");
+        };
+        handler = new PhasedTickEventHandler(
+                Executors.newSingleThreadExecutor(new ClockListenerThreadFactory((t, e) -> { })),
+                Arrays.asList(Collections.singletonList(failing),
+                        Collections.<ClockListener>singletonList(calls::incrementAndGet)));
+        handler.run();
+        TickEventHandlers.awaitDone(handler);
+
+        Assert.assertEquals(calls.get(), 1);
+    }
+
+    @Test
+    public void ticksPassed_handsElapsedTicksOver() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        handler = new PhasedTickEventHandler(Executors.newSingleThreadExecutor(),
+                Collections.singletonList(Collections.singletonList(new ClockListener() {
+                    @Override
+                    public void ticksPassed() {
+                        calls.incrementAndGet();
+                    }
+
+                    @Override
+                    public void ticksPassed(int elapsedTicks) {
+                        calls.addAndGet(elapsedTicks * 10);
+                    }
+                })));
+        handler.ticksPassed(3);
+        TickEventHandlers.awaitDone(handler);
+
+        Assert.assertEquals(calls.get(), 30);
+    }
+
+    @Test
+    public void run_whilePreviousRunning() {
+        CountDownLatch release = new CountDownLatch(1);
+        handler = new PhasedTickEventHandler(Executors.newSingleThreadExecutor(),
+                Collections.singletonList(Collections.<ClockListener>singletonList(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })));
+        handler.run();
+        try {
+            handler.run();
+            Assert.fail("No IllegalStateException got thrown.");
+        } catch (IllegalStateException e) {
+            Assert.assertFalse(handler.areDone());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void run_rejectedIsDone() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        handler = new PhasedTickEventHandler(executor, Collections.singletonList(
+                Collections.<ClockListener>singletonList(() -> { })));
+        try {
+            handler.run();
+            Assert.fail("No RejectedExecutionException got thrown.");
+        } catch (RejectedExecutionException e) {
+            Assert.assertTrue(handler.areDone());
+        }
+    }
+
+    @Test
+    public void run_partlyRejectedFinishesWithSubmitted() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        ClockListener blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        handler = new PhasedTickEventHandler(
+                new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>()),
+                Collections.singletonList(Arrays.asList(blocking, () -> { })));
+        try {
+            handler.run();
+            Assert.fail("No RejectedExecutionException got thrown.");
+        } catch (RejectedExecutionException e) {
+            Assert.assertFalse(handler.areDone());
+        } finally {
+            release.countDown();
+        }
+        TickEventHandlers.awaitDone(handler);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,253 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tests the ShardedTickEventHandler.
+ */
+public class ShardedTickEventHandlerTest {
+
+    /**
+     * The pool running the listeners.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The handler under test.
+     */
+    private TickEventHandler handler;
+
+    /**
+     * Empty constructor.
+     */
+    public ShardedTickEventHandlerTest() {
+    }
+
+    /**
+     * Creates the pool.
+     */
+    @BeforeMethod
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Shuts the pool down.
+     *
+     * @throws Exception if shutting down failed
+     */
+    @AfterMethod
+    public void tearDown() throws Exception {
+        if (handler != null) {
+            handler.shutdown(1L, TimeUnit.SECONDS);
+            handler = null;
+        } else {
+            pool.shutdownNow();
+        }
+    }
+
+    @DataProvider(name = "listenerCounts")
+    public Iterator<Object[]> getListenerCounts() {
+        return Arrays.asList(new Object[] {1}, new Object[] {7},
+                new Object[] {16}, new Object[] {17}, new Object[] {33},
+                new Object[] {1000}, new Object[] {1001}).iterator();
+    }
+
+    @Test(dataProvider = "listenerCounts")
+    public void run_callsEveryListenerOncePerTick(int listenerCount)
+            throws InterruptedException {
+        AtomicIntegerArray calls = new AtomicIntegerArray(listenerCount);
+        List<ClockListener> listeners = new ArrayList<>();
+        for (int i = 0; i < listenerCount; i++) {
+            int index = i;
+            listeners.add(() -> calls.incrementAndGet(index));
+        }
+        handler = new ShardedTickEventHandler(pool, listeners);
+        for (int tick = 0; tick < 3; tick++) {
+            handler.run();
+            TickEventHandlers.awaitDone(handler);
+        }
+
+        for (int i = 0; i < listenerCount; i++) {
+            Assert.assertEquals(calls.get(i), 3);
+        }
+    }
+
+    @Test
+    public void run_noListenersIsDone() {
+        handler = new ShardedTickEventHandler(pool, Collections.emptyList());
+        handler.run();
+
+        Assert.assertTrue(handler.areDone());
+    }
+
+    @Test
+    public void run_continuesAfterFailingListener() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        List<ClockListener> listeners = new ArrayList<>();
+        listeners.add(() -> {
+            throw new IllegalStateException("expected");
+        });
+        for (int i = 0; i < 99; i++) {
+            listeners.add(calls::incrementAndGet);
+        }
+        pool.shutdownNow();
+        handler = new ShardedTickEventHandler(4, (thread, exception) -> { }, listeners);
+        handler.run();
+        TickEventHandlers.awaitDone(handler);
+
+        Assert.assertEquals(calls.get(), 99);
+    }
+
+    @Test
+    public void ticksPassed_handsElapsedTicksOver() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        handler = new ShardedTickEventHandler(pool, Collections.singletonList(
+                new ClockListener() {
+                    @Override
+                    public void ticksPassed() {
+                        calls.incrementAndGet();
+                    }
+
+                    @Override
+                    public void ticksPassed(int elapsedTicks) {
+                        calls.addAndGet(elapsedTicks * 10);
+                    }
+                }));
+        handler.ticksPassed(3);
+        TickEventHandlers.awaitDone(handler);
+
+        Assert.assertEquals(calls.get(), 30);
+    }
+
+    @Test
+    public void areDone_falseWhileRunning() throws InterruptedException {
+        AtomicInteger release = new AtomicInteger();
+        handler = new ShardedTickEventHandler(pool, Collections.<ClockListener>singletonList(
+                () -> {
+                    while (release.get() == 0) {
+                        Thread.yield();
+                    }
+                }));
+        handler.run();
+
+        Assert.assertFalse(handler.areDone());
+        release.set(1);
+        TickEventHandlers.awaitDone(handler);
+    }
+
+    @Test
+    public void run_errorDoesNotFinishTickEarly() throws Exception {
+        AssertionError error = new AssertionError("expected");
+        CompletableFuture<Throwable> reported = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        List<ClockListener> listeners = new ArrayList<>();
+        listeners.add(() -> {
+            throw error;
+        });
+        for (int i = 0; i < 99; i++) {
+            listeners.add(() -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(1L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                calls.incrementAndGet();
+            });
+        }
+        pool.shutdownNow();
+        handler = new ShardedTickEventHandler(
+                4, (thread, exception) -> reported.complete(exception), listeners);
+        handler.run();
+        TickEventHandlers.awaitDone(handler);
+
+        Assert.assertEquals(calls.get(), 99);
+        Assert.assertSame(reported.get(5L, TimeUnit.SECONDS), error);
+    }
+
+    @Test
+    public void run_shardsRunOnSeveralWorkers() throws InterruptedException {
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        List<ClockListener> listeners = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            listeners.add(() -> {
+                workers.add(Thread.currentThread());
+                while (workers.size() < 2 && System.nanoTime() < deadline) {
+                    Thread.yield();
+                }
+            });
+        }
+        handler = new ShardedTickEventHandler(pool, listeners);
+        handler.run();
+        TickEventHandlers.awaitDone(handler);
+
+        Assert.assertTrue(workers.size() >= 2, "Only one worker ran the shards.");
+    }
+
+    @Test
+    public void new_workersNamedAfterClockListenerThreads() throws InterruptedException {
+        CompletableFuture<Thread> worker = new CompletableFuture<>();
+        Thread.UncaughtExceptionHandler ignore = (thread, exception) -> { };
+        pool.shutdownNow();
+        handler = new ShardedTickEventHandler(1, ignore, Collections.<ClockListener>singletonList(
+                () -> worker.complete(Thread.currentThread())));
+        handler.run();
+        TickEventHandlers.awaitDone(handler);
+
+        Thread thread = worker.getNow(null);
+        Assert.assertTrue(thread.getName().startsWith("ClockListenerThread-"));
+        Assert.assertTrue(thread.getName().endsWith("-ForkJoinWorker"));
+        Assert.assertTrue(thread.isDaemon());
+        Assert.assertSame(thread.getUncaughtExceptionHandler(), ignore);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void new_nullListener() {
+        new ShardedTickEventHandler(pool, Collections.<ClockListener>singletonList(null));
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
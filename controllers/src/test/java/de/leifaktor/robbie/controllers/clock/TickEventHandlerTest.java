@@ -23,6 +23,7 @@
 package de.leifaktor.robbie.controllers.clock;
 
 import de.leifaktor.robbie.api.controllers.clock.ClockListener;
+import de.leifaktor.robbie.api.controllers.clock.InlineClockListener;
 
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
@@ -32,10 +33,21 @@ import rex.palace.sequentialexecutor.ExecutorServiceState;
 import rex.palace.sequentialexecutor.SequentialExecutorService;
 import rex.palace.testhelp.TestThread;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -95,6 +107,85 @@ public class TickEventHandlerTest {
 
     }
 
+    /**
+     * An ExecutorService queueing its tasks until they are run explicitly.
+     */
+    private static class QueueingExecutorService extends AbstractExecutorService {
+
+        /**
+         * The tasks not yet run.
+         */
+        private final Deque<Runnable> queue = new ArrayDeque<>();
+
+        /**
+         * Whether this ExecutorService has been shutdown.
+         */
+        private boolean shutdown;
+
+        /**
+         * Empty constructor.
+         */
+        QueueingExecutorService() {
+        }
+
+        /**
+         * Runs the queued tasks, including those queued meanwhile.
+         */
+        void runAll() {
+            Runnable task = queue.poll();
+            while (task != null) {
+                task.run();
+                task = queue.poll();
+            }
+        }
+
+        /**
+         * Returns the number of queued tasks.
+         *
+         * @return the number of tasks not yet run
+         */
+        int queued() {
+            return queue.size();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor is shutdown.");
+            }
+            queue.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> tasks = new ArrayList<>(queue);
+            queue.clear();
+            return tasks;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && queue.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+
+    }
+
 
     /**
      * Empty Constructor.
@@ -102,6 +193,26 @@ public class TickEventHandlerTest {
     public TickEventHandlerTest() {
     }
 
+    /**
+     * Creates a listener recording the elapsed ticks of every call.
+     *
+     * @param calls the list to add the elapsed ticks to
+     * @return a new ClockListener
+     */
+    private static ClockListener recording(List<Integer> calls) {
+        return new ClockListener() {
+            @Override
+            public void ticksPassed() {
+                calls.add(1);
+            }
+
+            @Override
+            public void ticksPassed(int elapsedTicks) {
+                calls.add(elapsedTicks);
+            }
+        };
+    }
+
     /**
      * Initializes instance variables.
      */
@@ -214,6 +325,142 @@ public class TickEventHandlerTest {
         Assert.assertTrue(callEmptyHandler.areDone());
     }
 
+    @Test
+    public void run_inlineOnCallingThread() {
+        seqExSer.setExecutorServiceState(ExecutorServiceState.NEVER);
+        Thread[] caller = new Thread[1];
+        InlineClockListener inline = () -> caller[0] = Thread.currentThread();
+        TickEventHandler handler = new TickEventHandlerImpl(
+                seqExSer, Arrays.asList(inline, callCounter));
+
+        handler.run();
+
+        Assert.assertSame(caller[0], Thread.currentThread());
+        Assert.assertEquals(callCounter.count, 0);
+        Assert.assertFalse(handler.areDone());
+    }
+
+    @Test
+    public void run_inlineFailureDoesNotStopOthers() throws InterruptedException {
+        IllegalStateException failure = new IllegalStateException();
+        InlineClockListener failing = () -> {
+            throw failure;
+        };
+        InlineClockListener counting = callCounter::ticksPassed;
+        TickEventHandler handler = new TickEventHandlerImpl(
+                seqExSer, Arrays.asList(failing, counting));
+        List<Throwable> uncaught = new ArrayList<>();
+        Thread thread = new Thread(handler::run);
+        thread.setUncaughtExceptionHandler((t, e) -> uncaught.add(e));
+
+        thread.start();
+        thread.join();
+
+        Assert.assertEquals(callCounter.count, 1);
+        Assert.assertEquals(uncaught, Arrays.asList(failure));
+    }
+
+    @Test
+    public void ticksPassed_queuedTaskHandsOverTicksOfLaterTick() {
+        QueueingExecutorService executor = new QueueingExecutorService();
+        List<Integer> calls = new ArrayList<>();
+        TickEventHandler handler = new TickEventHandlerImpl(
+                executor, Collections.singletonList(recording(calls)));
+
+        handler.ticksPassed(1);
+        handler.ticksPassed(2);
+
+        Assert.assertEquals(executor.queued(), 1);
+        Assert.assertFalse(handler.areDone());
+
+        executor.runAll();
+
+        Assert.assertEquals(calls, Arrays.asList(3));
+        Assert.assertTrue(handler.areDone());
+    }
+
+    @Test
+    public void ticksPassed_tickDuringRunHandedOverBySameTask() {
+        QueueingExecutorService executor = new QueueingExecutorService();
+        List<Integer> calls = new ArrayList<>();
+        TickEventHandler[] handler = new TickEventHandler[1];
+        handler[0] = new TickEventHandlerImpl(executor, Collections.singletonList(
+                new ClockListener() {
+                    @Override
+                    public void ticksPassed() {
+                        ticksPassed(1);
+                    }
+
+                    @Override
+                    public void ticksPassed(int elapsedTicks) {
+                        calls.add(elapsedTicks);
+                        if (calls.size() == 1) {
+                            handler[0].ticksPassed(2);
+                            Assert.assertEquals(executor.queued(), 0);
+                        }
+                    }
+                }));
+
+        handler[0].run();
+        executor.runAll();
+
+        Assert.assertEquals(calls, Arrays.asList(1, 2));
+        Assert.assertTrue(handler[0].areDone());
+    }
+
+    @Test
+    public void areDone_afterEveryTaskFinished() {
+        QueueingExecutorService executor = new QueueingExecutorService();
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+        TickEventHandler handler = new TickEventHandlerImpl(
+                executor, Arrays.asList(recording(first), recording(second)));
+
+        Assert.assertTrue(handler.areDone());
+        handler.run();
+        Assert.assertFalse(handler.areDone());
+        executor.runAll();
+        Assert.assertTrue(handler.areDone());
+        Assert.assertEquals(first, Arrays.asList(1));
+        Assert.assertEquals(second, Arrays.asList(1));
+    }
+
+    @Test(timeOut = 10000L)
+    public void run_listenerFailureReachesUncaughtExceptionHandler() throws Exception {
+        IllegalStateException failure = new IllegalStateException();
+        CompletableFuture<Throwable> uncaught = new CompletableFuture<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor(
+                new ClockListenerThreadFactory((t, e) -> uncaught.complete(e)));
+        TickEventHandler handler = new TickEventHandlerImpl(
+                executor, Collections.singletonList((ClockListener) () -> {
+                    throw failure;
+                }));
+
+        handler.run();
+
+        Assert.assertSame(uncaught.get(5L, TimeUnit.SECONDS), failure);
+        TickEventHandlers.awaitDone(handler);
+        handler.shutdown(1L, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void ticksPassed_rejectedRollsBack() {
+        QueueingExecutorService executor = new QueueingExecutorService();
+        executor.shutdown();
+        TickEventHandler handler = new TickEventHandlerImpl(
+                executor, Collections.singletonList(callCounter));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                handler.run();
+                Assert.fail("No RejectedExecutionException got thrown.");
+            } catch (RejectedExecutionException e) {
+                Assert.assertTrue(handler.areDone());
+            }
+        }
+        Assert.assertEquals(callCounter.count, 0);
+    }
+
 }
 
 /* vim:set shiftwidth=4 softtabstop=4 expandtab: */
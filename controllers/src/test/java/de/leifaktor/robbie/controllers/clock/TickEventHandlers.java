@@ -0,0 +1,56 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.clock;
+
+import org.testng.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helpers for the tests of TickEventHandlers.
+ */
+final class TickEventHandlers {
+
+    /**
+     * Prevents instantiation.
+     */
+    private TickEventHandlers() {
+    }
+
+    /**
+     * Waits until handler is done, failing after five seconds.
+     *
+     * @param handler the handler to wait for
+     * @throws InterruptedException if interrupted while waiting
+     */
+    static void awaitDone(TickEventHandler handler) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (!handler.areDone()) {
+            Assert.assertTrue(System.nanoTime() < deadline, "Tick did not finish in time.");
+            TimeUnit.MILLISECONDS.sleep(1L);
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
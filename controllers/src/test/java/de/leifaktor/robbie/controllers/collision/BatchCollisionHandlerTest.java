@@ -0,0 +1,168 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.BatchCollisionHandler;
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.controllers.collision.GridCollisionDetectorTest.CollideableStub;
+import de.leifaktor.robbie.controllers.collision.PairModeTest.OtherCollideableStub;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the dispatch of collisions to BatchCollisionHandlers.
+ */
+public class BatchCollisionHandlerTest {
+
+    /**
+     * A BatchCollisionHandler recording its calls.
+     *
+     * @param <V> the type of the first Collideables
+     * @param <W> the type of the second Collideables
+     */
+    static class RecordingBatchHandler<V extends Collideable, W extends Collideable>
+            implements BatchCollisionHandler<V, W> {
+
+        /**
+         * The collisions of every call to collisionsHappened.
+         */
+        public final List<List<Collideable>> calls = new ArrayList<>();
+
+        /**
+         * Creates a new RecordingBatchHandler.
+         */
+        RecordingBatchHandler() {
+            super();
+        }
+
+        @Override
+        public void collisionsHappened(List<V> firsts, List<W> seconds) {
+            List<Collideable> call = new ArrayList<>();
+            for (int i = 0; i < firsts.size(); i++) {
+                call.add(firsts.get(i));
+                call.add(seconds.get(i));
+            }
+            calls.add(call);
+        }
+
+    }
+
+    /**
+     * The provider used by the tests.
+     */
+    private CollisionHandlerProvider provider;
+
+    /**
+     * Empty constructor.
+     */
+    public BatchCollisionHandlerTest() {
+        super();
+    }
+
+    /**
+     * Creates a fresh provider.
+     */
+    @BeforeMethod
+    public void initializeProvider() {
+        provider = new CollisionHandlerProviderImpl();
+    }
+
+    @Test
+    public void doDetection_oneCallPerDetection() {
+        RecordingBatchHandler<CollideableStub, CollideableStub> handler =
+                new RecordingBatchHandler<>();
+        provider.register(CollideableStub.class, CollideableStub.class, handler);
+        CollideableStub first = new CollideableStub(0, 0);
+        CollideableStub second = new CollideableStub(0.5, 0);
+        CollideableStub third = new CollideableStub(0, 0.5);
+        CollisionDetector detector = new CollisionDetectorImpl(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED,
+                DistanceKernels.scalar());
+
+        detector.doDetection(Arrays.asList(first, second, third));
+
+        Assert.assertEquals(handler.calls, Arrays.asList(
+                Arrays.asList(first, second, first, third, second, third)));
+    }
+
+    @Test
+    public void doDetection_noCallWithoutCollisions() {
+        RecordingBatchHandler<CollideableStub, CollideableStub> handler =
+                new RecordingBatchHandler<>();
+        provider.register(CollideableStub.class, CollideableStub.class, handler);
+        CollisionDetector detector = new CollisionDetectorImpl(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED,
+                DistanceKernels.scalar());
+
+        detector.doDetection(Arrays.asList(
+                new CollideableStub(0, 0), new CollideableStub(5, 5)));
+
+        Assert.assertTrue(handler.calls.isEmpty());
+    }
+
+    @Test
+    public void doDetection_swappedOrientationJoinsBatch() {
+        RecordingBatchHandler<CollideableStub, OtherCollideableStub> handler =
+                new RecordingBatchHandler<>();
+        provider.register(CollideableStub.class, OtherCollideableStub.class, handler);
+        OtherCollideableStub other = new OtherCollideableStub(0, 0);
+        CollideableStub stub = new CollideableStub(0.5, 0);
+        CollisionDetector detector = new CollisionDetectorImpl(
+                1, LimitMode.DISTANCE, provider, PairMode.ALL_ORDERED, DistanceKernels.scalar());
+
+        detector.doDetection(Arrays.asList(other, stub));
+
+        //(other, other) and (stub, other) match directly, (other, stub) is swapped
+        //and (stub, stub) has no handler
+        Assert.assertEquals(handler.calls, Arrays.asList(
+                Arrays.asList(other, other, stub, other, stub, other)));
+    }
+
+    @Test
+    public void doDetection_batchesAreNotCarriedOver() {
+        RecordingBatchHandler<CollideableStub, CollideableStub> handler =
+                new RecordingBatchHandler<>();
+        provider.register(CollideableStub.class, CollideableStub.class, handler);
+        CollideableStub first = new CollideableStub(0, 0);
+        CollideableStub second = new CollideableStub(0.5, 0);
+        CollisionDetector detector = new GridCollisionDetector(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED);
+
+        detector.doDetection(Arrays.asList(first, second));
+        detector.doDetection(Arrays.asList(first, second));
+
+        Assert.assertEquals(handler.calls, Arrays.asList(
+                Arrays.asList(first, second), Arrays.asList(first, second)));
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,210 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandler;
+import de.leifaktor.robbie.controllers.collision.GridCollisionDetectorTest.CollideableStub;
+import de.leifaktor.robbie.controllers.collision.PairModeTest.OtherCollideableStub;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the ClassMap.
+ */
+public class ClassMapTest {
+
+    /**
+     * A sub interface of Collideable.
+     */
+    interface Creature extends Collideable {
+    }
+
+    /**
+     * A Collideable implementing Creature.
+     */
+    static class CreatureStub extends CollideableStub implements Creature {
+
+        /**
+         * Creates a new CreatureStub at the origin.
+         */
+        CreatureStub() {
+            super(0, 0);
+        }
+
+    }
+
+    /**
+     * The ClassMap to test.
+     */
+    private ClassMap classMap;
+
+    /**
+     * Empty constructor.
+     */
+    public ClassMapTest() {
+        super();
+    }
+
+    /**
+     * Creates a fresh ClassMap.
+     */
+    @BeforeMethod
+    public void initializeClassMap() {
+        classMap = new ClassMap();
+    }
+
+    @Test
+    public void get_empty() {
+        Assert.assertNull(classMap.get(CollideableStub.class, CollideableStub.class));
+    }
+
+    @Test
+    public void get_registered() {
+        CollisionHandler<CollideableStub, OtherCollideableStub> handler = (c1, c2) -> { };
+        classMap.put(CollideableStub.class, OtherCollideableStub.class, handler);
+
+        Assert.assertSame(classMap.get(CollideableStub.class, OtherCollideableStub.class),
+                handler);
+    }
+
+    @Test
+    public void get_unrelatedNotFound() {
+        classMap.put(OtherCollideableStub.class, OtherCollideableStub.class, (c1, c2) -> { });
+
+        Assert.assertNull(classMap.get(CollideableStub.class, CollideableStub.class));
+        Assert.assertNull(classMap.get(CollideableStub.class, OtherCollideableStub.class));
+    }
+
+    @Test
+    public void get_swappedOrientation() {
+        List<Collideable> arguments = new ArrayList<>();
+        classMap.put(CollideableStub.class, OtherCollideableStub.class,
+                (c1, c2) -> arguments.addAll(Arrays.asList(c1, c2)));
+        OtherCollideableStub other = new OtherCollideableStub(0, 0);
+        CollideableStub stub = new CollideableStub(0, 0);
+
+        classMap.get(OtherCollideableStub.class, CollideableStub.class)
+                .collisionHappened(other, stub);
+
+        Assert.assertEquals(arguments, Arrays.asList(stub, other));
+    }
+
+    @Test
+    public void get_superClass() {
+        CollisionHandler<CollideableStub, CollideableStub> handler = (c1, c2) -> { };
+        classMap.put(CollideableStub.class, CollideableStub.class, handler);
+
+        Assert.assertSame(classMap.get(OtherCollideableStub.class, OtherCollideableStub.class),
+                handler);
+    }
+
+    @Test
+    public void get_interface() {
+        CollisionHandler<Creature, Collideable> handler = (c1, c2) -> { };
+        classMap.put(Creature.class, Collideable.class, handler);
+
+        Assert.assertSame(classMap.get(CreatureStub.class, OtherCollideableStub.class), handler);
+    }
+
+    @Test
+    public void get_mostSpecific() {
+        CollisionHandler<Collideable, Collideable> general = (c1, c2) -> { };
+        CollisionHandler<CollideableStub, OtherCollideableStub> specific = (c1, c2) -> { };
+        classMap.put(Collideable.class, Collideable.class, general);
+        classMap.put(CollideableStub.class, OtherCollideableStub.class, specific);
+
+        Assert.assertSame(classMap.get(CollideableStub.class, OtherCollideableStub.class),
+                specific);
+        Assert.assertSame(classMap.get(CreatureStub.class, OtherCollideableStub.class),
+                specific);
+        Assert.assertSame(classMap.get(CreatureStub.class, CreatureStub.class), general);
+    }
+
+    @Test
+    public void get_equallySpecificPrefersRequestedOrientation() {
+        List<String> called = new ArrayList<>();
+        classMap.put(CollideableStub.class, CreatureStub.class,
+                (c1, c2) -> called.add("swapped"));
+        classMap.put(CollideableStub.class, OtherCollideableStub.class,
+                (c1, c2) -> called.add("direct"));
+
+        classMap.get(CreatureStub.class, OtherCollideableStub.class)
+                .collisionHappened(new CreatureStub(), new OtherCollideableStub(0, 0));
+
+        Assert.assertEquals(called, Arrays.asList("direct"));
+    }
+
+    @Test
+    public void get_equallySpecificSameOrientationPrefersSuperClass() {
+        CollisionHandler<CollideableStub, Collideable> superClass = (c1, c2) -> { };
+        CollisionHandler<Creature, Collideable> superInterface = (c1, c2) -> { };
+        classMap.put(Creature.class, Collideable.class, superInterface);
+        classMap.put(CollideableStub.class, Collideable.class, superClass);
+
+        Assert.assertSame(classMap.get(CreatureStub.class, Collideable.class), superClass);
+    }
+
+    @Test
+    public void put_clearsMemoizedResults() {
+        CollisionHandler<Collideable, Collideable> general = (c1, c2) -> { };
+        CollisionHandler<CreatureStub, CreatureStub> specific = (c1, c2) -> { };
+        classMap.put(Collideable.class, Collideable.class, general);
+        Assert.assertSame(classMap.get(CreatureStub.class, CreatureStub.class), general);
+
+        classMap.put(CreatureStub.class, CreatureStub.class, specific);
+
+        Assert.assertSame(classMap.get(CreatureStub.class, CreatureStub.class), specific);
+    }
+
+    @Test
+    public void get_registeredAfterLookup() {
+        CollisionHandler<CollideableStub, CollideableStub> handler = (c1, c2) -> { };
+        Assert.assertNull(classMap.get(CollideableStub.class, CollideableStub.class));
+
+        classMap.put(CollideableStub.class, CollideableStub.class, handler);
+
+        Assert.assertSame(classMap.get(CollideableStub.class, CollideableStub.class), handler);
+    }
+
+    @Test
+    public void put_replaces() {
+        CollisionHandler<CollideableStub, CollideableStub> first = (c1, c2) -> { };
+        CollisionHandler<CollideableStub, CollideableStub> second = (c1, c2) -> { };
+        classMap.put(CollideableStub.class, CollideableStub.class, first);
+        classMap.put(CollideableStub.class, OtherCollideableStub.class, (c1, c2) -> { });
+
+        classMap.put(CollideableStub.class, CollideableStub.class, second);
+
+        Assert.assertSame(classMap.get(CollideableStub.class, CollideableStub.class), second);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
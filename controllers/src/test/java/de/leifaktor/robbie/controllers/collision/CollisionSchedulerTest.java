@@ -0,0 +1,219 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.CreatureController;
+import de.leifaktor.robbie.api.controllers.FieldController;
+import de.leifaktor.robbie.api.controllers.FloorController;
+import de.leifaktor.robbie.api.controllers.RoomController;
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.domain.Direction;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the CollisionScheduler.
+ */
+public class CollisionSchedulerTest {
+
+    /**
+     * A RoomController telling a CollisionScheduler when it is frozen.
+     */
+    static class RoomStub implements RoomController {
+
+        /**
+         * The scheduler to tell.
+         */
+        private final CollisionScheduler scheduler;
+
+        /**
+         * Creates a new RoomStub.
+         *
+         * @param scheduler the scheduler to tell about freezing
+         */
+        RoomStub(CollisionScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public FloorController getFloorController() {
+            return null;
+        }
+
+        @Override
+        public void enter(RoomController fromRoom, FieldController fromField,
+                          Direction direction, CreatureController creature) {
+            //Not needed
+        }
+
+        @Override
+        public void leave(RoomController toRoom, FieldController fromField,
+                          Direction direction, CreatureController creature) {
+            //Not needed
+        }
+
+        @Override
+        public void spawn(FieldController field, CreatureController creature) {
+            //Not needed
+        }
+
+        @Override
+        public void freeze() {
+            scheduler.roomFrozen(this);
+        }
+
+        @Override
+        public void unfreeze() {
+            scheduler.roomUnfrozen(this);
+        }
+
+    }
+
+    /**
+     * The scheduler to test.
+     */
+    private CollisionScheduler scheduler;
+
+    /**
+     * The detections in order, by the name of the detector.
+     */
+    private List<String> detections;
+
+    /**
+     * Empty constructor.
+     */
+    public CollisionSchedulerTest() {
+        super();
+    }
+
+    /**
+     * Creates a fresh scheduler.
+     */
+    @BeforeMethod
+    public void initializeScheduler() {
+        scheduler = new CollisionScheduler();
+        detections = new ArrayList<>();
+    }
+
+    /**
+     * Creates a CollisionDetector recording its detections.
+     *
+     * @param name the name to record
+     * @return a recording CollisionDetector
+     */
+    private CollisionDetector detector(String name) {
+        return collideables -> detections.add(name);
+    }
+
+    /**
+     * Registers a new room.
+     *
+     * @param name the name of its detector
+     * @return the new room
+     */
+    private RoomStub room(String name) {
+        RoomStub room = new RoomStub(scheduler);
+        Collection<Collideable> collideables = Collections.emptyList();
+        scheduler.register(room, detector(name), collideables);
+        return room;
+    }
+
+    @Test
+    public void ticksPassed_detectsRoomsInRegistrationOrder() {
+        room("first");
+        room("second");
+
+        scheduler.ticksPassed();
+
+        Assert.assertEquals(detections, Arrays.asList("first", "second"));
+    }
+
+    @Test
+    public void ticksPassed_skipsFrozenRooms() {
+        RoomStub first = room("first");
+        room("second");
+        first.freeze();
+
+        scheduler.ticksPassed();
+
+        Assert.assertEquals(detections, Collections.singletonList("second"));
+        Assert.assertFalse(scheduler.isActive(first));
+    }
+
+    @Test
+    public void ticksPassed_unfrozenRoomKeepsItsOrder() {
+        RoomStub first = room("first");
+        room("second");
+        first.freeze();
+        first.unfreeze();
+
+        scheduler.ticksPassed();
+
+        Assert.assertEquals(detections, Arrays.asList("first", "second"));
+    }
+
+    @Test
+    public void ticksPassed_unregisteredRoomIsSkipped() {
+        RoomStub first = room("first");
+
+        Assert.assertTrue(scheduler.unregister(first));
+        scheduler.ticksPassed();
+
+        Assert.assertTrue(detections.isEmpty());
+        Assert.assertFalse(scheduler.unregister(first));
+    }
+
+    @Test
+    public void register_passesCollideables() {
+        List<Collection<? extends Collideable>> passed = new ArrayList<>();
+        List<Collideable> collideables = new ArrayList<>();
+        scheduler.register(new RoomStub(scheduler), passed::add, collideables);
+
+        scheduler.ticksPassed();
+
+        Assert.assertEquals(passed.size(), 1);
+        Assert.assertSame(passed.get(0), collideables);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void roomFrozen_unregisteredRoom() {
+        new RoomStub(scheduler).freeze();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void register_nullDetector() {
+        scheduler.register(new RoomStub(scheduler), null, Collections.emptyList());
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,258 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.api.controllers.collision.ContactHandler;
+import de.leifaktor.robbie.controllers.collision.GridCollisionDetectorTest.CollideableStub;
+import de.leifaktor.robbie.controllers.collision.PairModeTest.OtherCollideableStub;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the begin, persist and end events passed to ContactHandlers.
+ */
+public class ContactHandlerTest {
+
+    /**
+     * A ContactHandler recording its events.
+     *
+     * @param <V> the type of the first Collideables
+     * @param <W> the type of the second Collideables
+     */
+    static class RecordingContactHandler<V extends Collideable, W extends Collideable>
+            implements ContactHandler<V, W> {
+
+        /**
+         * The events in the order they happened.
+         */
+        public final List<List<Object>> events = new ArrayList<>();
+
+        /**
+         * Creates a new RecordingContactHandler.
+         */
+        RecordingContactHandler() {
+            super();
+        }
+
+        @Override
+        public void contactBegan(V c1, W c2) {
+            events.add(Arrays.asList("began", c1, c2));
+        }
+
+        @Override
+        public void contactPersisted(V c1, W c2) {
+            events.add(Arrays.asList("persisted", c1, c2));
+        }
+
+        @Override
+        public void contactEnded(V c1, W c2) {
+            events.add(Arrays.asList("ended", c1, c2));
+        }
+
+    }
+
+    /**
+     * The provider used by the tests.
+     */
+    private CollisionHandlerProvider provider;
+
+    /**
+     * The handler registered for two CollideableStubs.
+     */
+    private RecordingContactHandler<CollideableStub, CollideableStub> handler;
+
+    /**
+     * Empty constructor.
+     */
+    public ContactHandlerTest() {
+        super();
+    }
+
+    /**
+     * Creates a fresh provider with a fresh handler.
+     */
+    @BeforeMethod
+    public void initializeProvider() {
+        provider = new CollisionHandlerProviderImpl();
+        handler = new RecordingContactHandler<>();
+        provider.register(CollideableStub.class, CollideableStub.class, handler);
+    }
+
+    @Test
+    public void doDetection_beginPersistEnd() {
+        CollideableStub first = new CollideableStub(0, 0);
+        CollideableStub near = new CollideableStub(0.5, 0);
+        CollideableStub far = new CollideableStub(5, 5);
+        CollisionDetector detector = new CollisionDetectorImpl(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED,
+                DistanceKernels.scalar());
+
+        detector.doDetection(Arrays.asList(first, near));
+        detector.doDetection(Arrays.asList(first, near));
+        detector.doDetection(Arrays.asList(first, far));
+
+        Assert.assertEquals(handler.events, Arrays.asList(
+                Arrays.asList("began", first, near),
+                Arrays.asList("persisted", first, near),
+                Arrays.asList("ended", first, near)));
+    }
+
+    @Test
+    public void doDetection_contactBeginsAgainAfterEnd() {
+        CollideableStub first = new CollideableStub(0, 0);
+        CollideableStub second = new CollideableStub(0.5, 0);
+        CollisionDetector detector = new GridCollisionDetector(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED);
+
+        detector.doDetection(Arrays.asList(first, second));
+        detector.doDetection(Collections.singletonList(first));
+        detector.doDetection(Arrays.asList(first, second));
+
+        Assert.assertEquals(handler.events, Arrays.asList(
+                Arrays.asList("began", first, second),
+                Arrays.asList("ended", first, second),
+                Arrays.asList("began", first, second)));
+    }
+
+    @Test
+    public void doDetection_swappedRegistrationKeepsOrientation() {
+        RecordingContactHandler<CollideableStub, OtherCollideableStub> mixed =
+                new RecordingContactHandler<>();
+        provider.register(CollideableStub.class, OtherCollideableStub.class, mixed);
+        OtherCollideableStub other = new OtherCollideableStub(0, 0);
+        CollideableStub stub = new CollideableStub(0.5, 0);
+        CollisionDetector detector = new CollisionDetectorImpl(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED,
+                DistanceKernels.scalar());
+
+        detector.doDetection(Arrays.asList(other, stub));
+        detector.doDetection(Collections.emptyList());
+
+        Assert.assertEquals(mixed.events, Arrays.asList(
+                Arrays.asList("began", stub, other),
+                Arrays.asList("ended", stub, other)));
+    }
+
+    @Test
+    public void doDetection_allOrderedReportsOncePerPair() {
+        CollideableStub first = new CollideableStub(0, 0);
+        CollideableStub near = new CollideableStub(0.5, 0);
+        CollisionDetector detector = new CollisionDetectorImpl(
+                1, LimitMode.DISTANCE, provider, PairMode.ALL_ORDERED, DistanceKernels.scalar());
+
+        detector.doDetection(Arrays.asList(first, near));
+        detector.doDetection(Arrays.asList(first, near));
+        detector.doDetection(Collections.singletonList(first));
+
+        Assert.assertEquals(handler.events, Arrays.asList(
+                Arrays.asList("began", first, near),
+                Arrays.asList("persisted", first, near),
+                Arrays.asList("ended", first, near)));
+    }
+
+    @Test
+    public void doDetection_allOrderedIgnoresSelfPairs() {
+        CollideableStub single = new CollideableStub(0, 0);
+        CollisionDetector detector = new GridCollisionDetector(
+                1, LimitMode.DISTANCE, provider, PairMode.ALL_ORDERED);
+
+        detector.doDetection(Collections.singletonList(single));
+        detector.doDetection(Collections.emptyList());
+
+        Assert.assertTrue(handler.events.isEmpty());
+    }
+
+    @Test
+    public void doDetection_allOrderedSwappedRegistration() {
+        RecordingContactHandler<CollideableStub, OtherCollideableStub> mixed =
+                new RecordingContactHandler<>();
+        provider.register(CollideableStub.class, OtherCollideableStub.class, mixed);
+        OtherCollideableStub other = new OtherCollideableStub(0, 0);
+        CollideableStub stub = new CollideableStub(0.5, 0);
+        CollisionDetector detector = new CollisionDetectorImpl(
+                1, LimitMode.DISTANCE, provider, PairMode.ALL_ORDERED, DistanceKernels.scalar());
+
+        detector.doDetection(Arrays.asList(other, stub));
+        detector.doDetection(Arrays.asList(other, stub));
+        detector.doDetection(Collections.emptyList());
+
+        Assert.assertEquals(mixed.events, Arrays.asList(
+                Arrays.asList("began", stub, other),
+                Arrays.asList("persisted", stub, other),
+                Arrays.asList("ended", stub, other)));
+    }
+
+    @Test
+    public void doDetection_manyContacts() {
+        List<CollideableStub> stubs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            stubs.add(new CollideableStub(i * 0.75, 0));
+        }
+        CollisionDetector detector = new SweepAndPruneCollisionDetector(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED);
+
+        detector.doDetection(stubs);
+        detector.doDetection(stubs);
+        detector.doDetection(stubs.subList(0, 50));
+
+        int began = 0;
+        int persisted = 0;
+        int ended = 0;
+        for (List<Object> event : handler.events) {
+            if ("began".equals(event.get(0))) {
+                began++;
+            } else if ("persisted".equals(event.get(0))) {
+                persisted++;
+            } else {
+                ended++;
+            }
+        }
+        Assert.assertEquals(began, 99);
+        Assert.assertEquals(persisted, 99 + 49);
+        Assert.assertEquals(ended, 50);
+    }
+
+    @Test
+    public void collisionHappened_passedToContactPersisted() {
+        CollideableStub first = new CollideableStub(0, 0);
+        CollideableStub second = new CollideableStub(0, 0);
+
+        handler.collisionHappened(first, second);
+
+        Assert.assertEquals(handler.events, Collections.singletonList(
+                Arrays.asList("persisted", first, second)));
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
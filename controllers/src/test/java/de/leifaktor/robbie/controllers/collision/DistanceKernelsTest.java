@@ -0,0 +1,92 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * Tests the DistanceKernels class.
+ */
+public class DistanceKernelsTest {
+
+    /**
+     * Empty constructor.
+     */
+    public DistanceKernelsTest() {
+        super();
+    }
+
+    @DataProvider(name = "kernels")
+    public Object[][] kernels() {
+        return new Object[][]{
+                {DistanceKernels.scalar()}, {DistanceKernels.vectorized()}
+        };
+    }
+
+    @Test(dataProvider = "kernels")
+    public void distances_squaredEuclidean(DistanceKernel kernel) {
+        double[] xs = {0, 3, -1, 7};
+        double[] ys = {0, 4, 1, 7};
+        double[] distances = new double[3];
+
+        kernel.distances(0, 0, xs, ys, 1, 4, distances);
+
+        Assert.assertEquals(distances[0], 25.0);
+        Assert.assertEquals(distances[1], 2.0);
+        Assert.assertEquals(distances[2], 98.0);
+    }
+
+    @Test(dataProvider = "kernels")
+    public void doDetection_sameAsDefaultKernel(DistanceKernel kernel) {
+        for (Object[] scene : new GridCollisionDetectorTest().provideRandomScenes()) {
+            double limit = (Double) scene[0];
+            @SuppressWarnings("unchecked")
+            List<GridCollisionDetectorTest.CollideableStub> collideables =
+                    (List<GridCollisionDetectorTest.CollideableStub>) scene[1];
+            List<String> expected = GridCollisionDetectorTest.record(
+                    GridCollisionDetectorTest::bruteForce, limit, collideables);
+
+            List<String> actual = GridCollisionDetectorTest.record(
+                    (detectorLimit, provider) -> new CollisionDetectorImpl(
+                            detectorLimit, LimitMode.DISTANCE, provider, PairMode.ALL_ORDERED,
+                            kernel),
+                    limit, collideables);
+
+            Assert.assertEquals(actual, expected);
+        }
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void new_nullKernel() {
+        new CollisionDetectorImpl(
+                1, LimitMode.DISTANCE, new CollisionHandlerProviderImpl(), PairMode.ALL_ORDERED,
+                null);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,215 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.api.controllers.collision.DoublePosition;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the GridCollisionDetector.
+ */
+public class GridCollisionDetectorTest {
+
+    /**
+     * A stub implementation of Collideable with a fixed position.
+     */
+    static class CollideableStub implements Collideable {
+
+        /**
+         * The position returned by getPosition().
+         */
+        private final DoublePosition position;
+
+        /**
+         * Creates a new CollideableStub.
+         *
+         * @param x the x coordinate
+         * @param y the y coordinate
+         */
+        CollideableStub(double x, double y) {
+            position = new DoublePosition(x, y);
+        }
+
+        @Override
+        public DoublePosition getPosition() {
+            return position;
+        }
+
+    }
+
+    /**
+     * Empty constructor.
+     */
+    public GridCollisionDetectorTest() {
+        super();
+    }
+
+    @DataProvider(name = "randomScenes")
+    public Object[][] provideRandomScenes() {
+        Random random = new Random(0x5eedL);
+        Object[][] scenes = new Object[10][];
+        for (int i = 0; i < scenes.length; i++) {
+            List<CollideableStub> collideables = new ArrayList<>();
+            int count = random.nextInt(200);
+            for (int j = 0; j < count; j++) {
+                collideables.add(new CollideableStub(
+                        random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20));
+            }
+            scenes[i] = new Object[] {random.nextDouble() * 8 + 0.01, collideables};
+        }
+        return scenes;
+    }
+
+    /**
+     * Runs detector on collideables and records the collisions as index pairs.
+     *
+     * @param detectorFactory creates the detector for a given provider
+     * @param limit the limit for detecting a collision
+     * @param collideables the collideables to check
+     * @return the indices of the colliding collideables in order of detection
+     */
+    static List<String> record(DetectorFactory detectorFactory, double limit,
+                               List<CollideableStub> collideables) {
+        List<String> collisions = new ArrayList<>();
+        CollisionHandlerProvider provider = new CollisionHandlerProviderImpl();
+        provider.register(CollideableStub.class, CollideableStub.class,
+                (c1, c2) -> collisions.add(
+                        collideables.indexOf(c1) + "-" + collideables.indexOf(c2)));
+        detectorFactory.newInstance(limit, provider).doDetection(collideables);
+        return collisions;
+    }
+
+    /**
+     * Creates CollisionDetectors.
+     */
+    @FunctionalInterface
+    interface DetectorFactory {
+
+        /**
+         * Creates a new CollisionDetector.
+         *
+         * @param limit the threshold for detecting a collision
+         * @param provider the CollisionHandlerProvider to use
+         * @return a new CollisionDetector
+         */
+        CollisionDetector newInstance(double limit, CollisionHandlerProvider provider);
+
+    }
+
+    /**
+     * Creates a CollisionDetectorImpl reporting all ordered pairs closer than limit.
+     *
+     * @param limit the euclidean distance under which a collision is detected
+     * @param provider the CollisionHandlerProvider to use
+     * @return a new CollisionDetectorImpl
+     */
+    static CollisionDetector bruteForce(double limit, CollisionHandlerProvider provider) {
+        return new CollisionDetectorImpl(limit, LimitMode.DISTANCE, provider,
+                PairMode.ALL_ORDERED, DistanceKernels.scalar());
+    }
+
+    /**
+     * Creates a GridCollisionDetector reporting all ordered pairs closer than limit.
+     *
+     * @param limit the euclidean distance under which a collision is detected
+     * @param provider the CollisionHandlerProvider to use
+     * @return a new GridCollisionDetector
+     */
+    static CollisionDetector grid(double limit, CollisionHandlerProvider provider) {
+        return new GridCollisionDetector(limit, LimitMode.DISTANCE, provider, PairMode.ALL_ORDERED);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void new_nonPositiveLimit() {
+        new GridCollisionDetector(
+                0, LimitMode.DISTANCE, new CollisionHandlerProviderImpl(), PairMode.ALL_ORDERED);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void new_nullProvider() {
+        new GridCollisionDetector(1, LimitMode.DISTANCE, null, PairMode.ALL_ORDERED);
+    }
+
+    @Test
+    public void doDetection_empty() {
+        List<String> collisions = record(
+                GridCollisionDetectorTest::grid, 1, Collections.emptyList());
+
+        Assert.assertTrue(collisions.isEmpty());
+    }
+
+    @Test(dataProvider = "randomScenes")
+    public void doDetection_sameAsBruteForce(double limit, List<CollideableStub> collideables) {
+        List<String> expected = record(GridCollisionDetectorTest::bruteForce, limit, collideables);
+
+        List<String> actual = record(GridCollisionDetectorTest::grid, limit, collideables);
+
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test(dataProvider = "randomScenes")
+    public void doDetection_reused(double limit, List<CollideableStub> collideables) {
+        List<String> collisions = new ArrayList<>();
+        CollisionHandlerProvider provider = new CollisionHandlerProviderImpl();
+        provider.register(CollideableStub.class, CollideableStub.class,
+                (c1, c2) -> collisions.add(c1.hashCode() + "-" + c2.hashCode()));
+        CollisionDetector detector = new GridCollisionDetector(
+                limit, LimitMode.DISTANCE, provider, PairMode.ALL_ORDERED);
+
+        detector.doDetection(collideables);
+        List<String> first = new ArrayList<>(collisions);
+        collisions.clear();
+        detector.doDetection(collideables);
+
+        Assert.assertEquals(collisions, first);
+    }
+
+    @Test(timeOut = 5000L)
+    public void doDetection_extremeCoordinates() {
+        List<CollideableStub> collideables = new ArrayList<>();
+        collideables.add(new CollideableStub(Double.MAX_VALUE, Double.MAX_VALUE));
+        collideables.add(new CollideableStub(Double.MAX_VALUE, Double.MAX_VALUE));
+        collideables.add(new CollideableStub(-Double.MAX_VALUE, 1E300));
+        collideables.add(new CollideableStub(0, 0));
+        List<String> expected = record(GridCollisionDetectorTest::bruteForce, 1, collideables);
+
+        List<String> actual = record(GridCollisionDetectorTest::grid, 1, collideables);
+
+        Assert.assertEquals(actual, expected);
+        Assert.assertTrue(actual.contains("0-1"));
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,212 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.Collideable;
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.api.controllers.collision.DoublePosition;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests the IncrementalCollisionDetector.
+ */
+public class IncrementalCollisionDetectorTest {
+
+    /**
+     * A Collideable which can be moved.
+     */
+    static class MovingStub implements Collideable {
+
+        /**
+         * The current position.
+         */
+        private DoublePosition position;
+
+        /**
+         * Creates a new MovingStub.
+         *
+         * @param x the initial x coordinate
+         * @param y the initial y coordinate
+         */
+        MovingStub(double x, double y) {
+            position = new DoublePosition(x, y);
+        }
+
+        /**
+         * Moves this by (xDiff, yDiff).
+         *
+         * @param xDiff the change of the x coordinate
+         * @param yDiff the change of the y coordinate
+         */
+        void moveBy(double xDiff, double yDiff) {
+            position = new DoublePosition(position.getX() + xDiff, position.getY() + yDiff);
+        }
+
+        @Override
+        public DoublePosition getPosition() {
+            return position;
+        }
+
+    }
+
+    /**
+     * Empty constructor.
+     */
+    public IncrementalCollisionDetectorTest() {
+        super();
+    }
+
+    /**
+     * Creates a provider adding the unordered pairs of collisions to contacts.
+     *
+     * @param contacts the set to add the contacts to
+     * @param failOnDuplicate if a contact reported twice shall fail the test
+     * @return a CollisionHandlerProvider
+     */
+    private static CollisionHandlerProvider recordingProvider(
+            Set<Set<MovingStub>> contacts, boolean failOnDuplicate) {
+        CollisionHandlerProvider provider = new CollisionHandlerProviderImpl();
+        provider.register(MovingStub.class, MovingStub.class, (c1, c2) -> {
+            Set<MovingStub> contact = new HashSet<>();
+            contact.add(c1);
+            contact.add(c2);
+            if (!contacts.add(contact) && failOnDuplicate) {
+                Assert.fail("Contact reported twice.");
+            }
+        });
+        return provider;
+    }
+
+    @Test
+    public void doDetection_sameContactsAsBruteForce() {
+        Random random = new Random(0xabcL);
+        Set<Set<MovingStub>> expected = new HashSet<>();
+        Set<Set<MovingStub>> actual = new HashSet<>();
+        CollisionDetector bruteForce = new CollisionDetectorImpl(
+                4, LimitMode.DISTANCE, recordingProvider(expected, false),
+                PairMode.DISTINCT_UNORDERED, DistanceKernels.scalar());
+        CollisionDetector incremental = new IncrementalCollisionDetector(
+                4, LimitMode.DISTANCE, recordingProvider(actual, true));
+        List<MovingStub> collideables = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            collideables.add(new MovingStub(random.nextDouble() * 50, random.nextDouble() * 50));
+        }
+
+        for (int tick = 0; tick < 50; tick++) {
+            for (MovingStub collideable : collideables) {
+                if (random.nextInt(8) == 0) {
+                    collideable.moveBy(random.nextGaussian(), random.nextGaussian());
+                }
+            }
+            if (tick % 3 == 0) {
+                collideables.remove(random.nextInt(collideables.size()));
+                collideables.add(new MovingStub(
+                        random.nextDouble() * 50, random.nextDouble() * 50));
+            }
+            expected.clear();
+            actual.clear();
+            bruteForce.doDetection(collideables);
+            incremental.doDetection(collideables);
+
+            Assert.assertEquals(actual, expected);
+        }
+    }
+
+    @Test
+    public void doDetection_persistentContactReportedEveryTime() {
+        Set<Set<MovingStub>> contacts = new HashSet<>();
+        CollisionDetector detector = new IncrementalCollisionDetector(
+                1, LimitMode.DISTANCE, recordingProvider(contacts, true));
+        List<MovingStub> collideables = new ArrayList<>();
+        collideables.add(new MovingStub(0, 0));
+        collideables.add(new MovingStub(0.5, 0));
+
+        detector.doDetection(collideables);
+        Assert.assertEquals(contacts.size(), 1);
+        contacts.clear();
+        detector.doDetection(collideables);
+
+        Assert.assertEquals(contacts.size(), 1);
+    }
+
+    @Test
+    public void doDetection_contactEndsOnRemoval() {
+        Set<Set<MovingStub>> contacts = new HashSet<>();
+        CollisionDetector detector = new IncrementalCollisionDetector(
+                1, LimitMode.DISTANCE, recordingProvider(contacts, true));
+        List<MovingStub> collideables = new ArrayList<>();
+        collideables.add(new MovingStub(0, 0));
+        collideables.add(new MovingStub(0.5, 0));
+
+        detector.doDetection(collideables);
+        contacts.clear();
+        collideables.remove(1);
+        detector.doDetection(collideables);
+
+        Assert.assertTrue(contacts.isEmpty());
+    }
+
+    @Test
+    public void doDetection_failingPositionKeepsMovers() {
+        Set<Set<MovingStub>> contacts = new HashSet<>();
+        CollisionDetector detector = new IncrementalCollisionDetector(
+                1, LimitMode.DISTANCE, recordingProvider(contacts, true));
+        boolean[] failing = {false};
+        Collideable faulty = () -> {
+            if (failing[0]) {
+                throw new IllegalStateException("No position.");
+            }
+            return new DoublePosition(100, 100);
+        };
+        MovingStub mover = new MovingStub(5, 0);
+        List<Collideable> collideables = new ArrayList<>();
+        collideables.add(new MovingStub(0, 0));
+        collideables.add(mover);
+        collideables.add(faulty);
+        detector.doDetection(collideables);
+
+        mover.moveBy(-4.5, 0);
+        failing[0] = true;
+        try {
+            detector.doDetection(collideables);
+            Assert.fail("No IllegalStateException got thrown.");
+        } catch (IllegalStateException e) {
+            failing[0] = false;
+        }
+        detector.doDetection(collideables);
+
+        Assert.assertEquals(contacts.size(), 1);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
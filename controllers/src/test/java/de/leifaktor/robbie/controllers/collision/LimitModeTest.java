@@ -0,0 +1,178 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.controllers.collision.GridCollisionDetectorTest.CollideableStub;
+import de.leifaktor.robbie.controllers.collision.GridCollisionDetectorTest.DetectorFactory;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests how the detectors interpret their limit.
+ */
+public class LimitModeTest {
+
+    /**
+     * Creates CollisionDetectors comparing the limit as given by a LimitMode.
+     */
+    @FunctionalInterface
+    interface ModeDetectorFactory {
+
+        /**
+         * Creates a new CollisionDetector.
+         *
+         * @param limit the threshold for detecting a collision
+         * @param limitMode what limit is compared to
+         * @param provider the CollisionHandlerProvider to use
+         * @return a new CollisionDetector
+         */
+        CollisionDetector newInstance(
+                double limit, LimitMode limitMode, CollisionHandlerProvider provider);
+
+    }
+
+    /**
+     * Empty constructor.
+     */
+    public LimitModeTest() {
+        super();
+    }
+
+    @DataProvider(name = "detectors")
+    public Object[][] detectors() {
+        return new Object[][]{
+                {(ModeDetectorFactory) (limit, mode, provider) -> new CollisionDetectorImpl(
+                        limit, mode, provider, PairMode.DISTINCT_UNORDERED,
+                        DistanceKernels.scalar())},
+                {(ModeDetectorFactory) (limit, mode, provider) -> new GridCollisionDetector(
+                        limit, mode, provider, PairMode.DISTINCT_UNORDERED)},
+                {(ModeDetectorFactory) (limit, mode, provider) -> new ParallelCollisionDetector(
+                        limit, mode, provider, PairMode.DISTINCT_UNORDERED,
+                        ForkJoinPool.commonPool())},
+                {(ModeDetectorFactory) IncrementalCollisionDetector::new},
+                {(ModeDetectorFactory) (limit, mode, provider) ->
+                        new SweepAndPruneCollisionDetector(
+                                limit, mode, provider, PairMode.DISTINCT_UNORDERED)},
+                {(ModeDetectorFactory) (limit, mode, provider) -> new SweptCollisionDetector(
+                        limit, mode, provider, PairMode.DISTINCT_UNORDERED)}
+        };
+    }
+
+    @DataProvider(name = "legacyDetectors")
+    @SuppressWarnings("deprecation")
+    public Object[][] legacyDetectors() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        PairMode distinct = PairMode.DISTINCT_UNORDERED;
+        return new Object[][]{
+                {(DetectorFactory) CollisionDetectorImpl::new},
+                {(DetectorFactory) (limit, provider) ->
+                        new CollisionDetectorImpl(limit, provider, distinct)},
+                {(DetectorFactory) (limit, provider) -> new CollisionDetectorImpl(
+                        limit, provider, distinct, DistanceKernels.scalar())},
+                {(DetectorFactory) GridCollisionDetector::new},
+                {(DetectorFactory) (limit, provider) ->
+                        new GridCollisionDetector(limit, provider, distinct)},
+                {(DetectorFactory) (limit, provider) ->
+                        new ParallelCollisionDetector(limit, provider, pool)},
+                {(DetectorFactory) (limit, provider) ->
+                        new ParallelCollisionDetector(limit, provider, distinct, pool)},
+                {(DetectorFactory) IncrementalCollisionDetector::new},
+                {(DetectorFactory) SweepAndPruneCollisionDetector::new},
+                {(DetectorFactory) (limit, provider) ->
+                        new SweepAndPruneCollisionDetector(limit, provider, distinct)},
+                {(DetectorFactory) SweptCollisionDetector::new},
+                {(DetectorFactory) (limit, provider) ->
+                        new SweptCollisionDetector(limit, provider, distinct)}
+        };
+    }
+
+    /**
+     * Returns the number of collisions detector finds between two
+     * CollideableStubs 1.5 apart.
+     *
+     * @param factory creates the detector
+     * @param limit the limit of the detector
+     * @param limitMode what limit is compared to
+     * @return the number of collisions
+     */
+    private static int collisions(ModeDetectorFactory factory, double limit, LimitMode limitMode) {
+        return collisions((lim, provider) -> factory.newInstance(lim, limitMode, provider), limit);
+    }
+
+    /**
+     * Returns the number of collisions detector finds between two
+     * distinct CollideableStubs 1.5 apart.
+     *
+     * @param factory creates the detector
+     * @param limit the limit of the detector
+     * @return the number of collisions
+     */
+    private static int collisions(DetectorFactory factory, double limit) {
+        List<CollideableStub> collisions = new ArrayList<>();
+        CollisionHandlerProvider provider = new CollisionHandlerProviderImpl();
+        provider.register(CollideableStub.class, CollideableStub.class, (c1, c2) -> {
+            if (c1 != c2) {
+                collisions.add(c1);
+            }
+        });
+        factory.newInstance(limit, provider).doDetection(Arrays.asList(
+                new CollideableStub(0, 0), new CollideableStub(1.5, 0)));
+        return collisions.size();
+    }
+
+    @Test(dataProvider = "detectors")
+    public void doDetection_euclideanDistance(ModeDetectorFactory factory) {
+        Assert.assertEquals(collisions(factory, 2, LimitMode.DISTANCE), 1);
+        Assert.assertEquals(collisions(factory, 1.4, LimitMode.DISTANCE), 0);
+    }
+
+    @Test(dataProvider = "detectors")
+    public void doDetection_squaredDistance(ModeDetectorFactory factory) {
+        Assert.assertEquals(collisions(factory, 2, LimitMode.SQUARED_DISTANCE), 0);
+        Assert.assertEquals(collisions(factory, 2.3, LimitMode.SQUARED_DISTANCE), 1);
+    }
+
+    @Test(dataProvider = "legacyDetectors")
+    public void doDetection_legacyConstructorsCompareSquaredDistance(DetectorFactory factory) {
+        Assert.assertEquals(collisions(factory, 2), 0);
+        Assert.assertTrue(collisions(factory, 2.3) > 0);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void new_nullLimitMode() {
+        new GridCollisionDetector(1, null, new CollisionHandlerProviderImpl(),
+                PairMode.ALL_ORDERED);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,114 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.controllers.collision.GridCollisionDetectorTest.CollideableStub;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the PairModes of the CollisionDetectors.
+ */
+public class PairModeTest {
+
+    /**
+     * A second Collideable type for testing the orientation of handlers.
+     */
+    static class OtherCollideableStub extends CollideableStub {
+
+        /**
+         * Creates a new OtherCollideableStub.
+         *
+         * @param x the x coordinate
+         * @param y the y coordinate
+         */
+        OtherCollideableStub(double x, double y) {
+            super(x, y);
+        }
+
+    }
+
+    /**
+     * Empty constructor.
+     */
+    public PairModeTest() {
+        super();
+    }
+
+    @DataProvider(name = "detectorFactories")
+    public Object[][] provideDetectorFactories() {
+        GridCollisionDetectorTest.DetectorFactory bruteForce = (limit, provider) ->
+                new CollisionDetectorImpl(
+                        limit, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED,
+                        DistanceKernels.scalar());
+        GridCollisionDetectorTest.DetectorFactory grid = (limit, provider) ->
+                new GridCollisionDetector(
+                        limit, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED);
+        return new Object[][] {{bruteForce}, {grid}};
+    }
+
+    @Test(dataProvider = "detectorFactories")
+    public void distinct_reportsEveryContactOnce(
+            GridCollisionDetectorTest.DetectorFactory factory) {
+        List<CollideableStub> collideables = Arrays.asList(
+                new CollideableStub(0, 0), new CollideableStub(0.5, 0),
+                new CollideableStub(5, 5), new CollideableStub(0.25, 0.25));
+
+        List<String> collisions = GridCollisionDetectorTest.record(factory, 1, collideables);
+
+        Assert.assertEquals(collisions, Arrays.asList("0-1", "0-3", "1-3"));
+    }
+
+    @Test(dataProvider = "detectorFactories")
+    public void distinct_noSelfCollision(GridCollisionDetectorTest.DetectorFactory factory) {
+        List<String> collisions = GridCollisionDetectorTest.record(
+                factory, 1, Collections.singletonList(new CollideableStub(0, 0)));
+
+        Assert.assertTrue(collisions.isEmpty());
+    }
+
+    @Test(dataProvider = "detectorFactories")
+    public void distinct_usesSwappedHandler(GridCollisionDetectorTest.DetectorFactory factory) {
+        OtherCollideableStub other = new OtherCollideableStub(0, 0);
+        CollideableStub stub = new CollideableStub(0, 0.5);
+        List<Object> collisions = new ArrayList<>();
+        CollisionHandlerProvider provider = new CollisionHandlerProviderImpl();
+        provider.register(CollideableStub.class, OtherCollideableStub.class,
+                (c1, c2) -> collisions.addAll(Arrays.asList(c1, c2)));
+
+        factory.newInstance(1, provider).doDetection(Arrays.asList(other, stub));
+
+        Assert.assertEquals(collisions, Arrays.asList(stub, other));
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,126 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.controllers.collision.GridCollisionDetectorTest.CollideableStub;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests the ParallelCollisionDetector.
+ */
+public class ParallelCollisionDetectorTest {
+
+    /**
+     * The ForkJoinPool the tests use.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Empty constructor.
+     */
+    public ParallelCollisionDetectorTest() {
+        super();
+    }
+
+    /**
+     * Creates the pool.
+     */
+    @BeforeMethod
+    public void initializePool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Shuts the pool down.
+     */
+    @AfterMethod
+    public void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    @DataProvider(name = "largeScenes")
+    public Object[][] provideLargeScenes() {
+        Random random = new Random(0xfeedL);
+        Object[][] scenes = new Object[4][];
+        for (int i = 0; i < scenes.length; i++) {
+            List<CollideableStub> collideables = new ArrayList<>();
+            int count = 300 + random.nextInt(1500);
+            for (int j = 0; j < count; j++) {
+                collideables.add(new CollideableStub(
+                        random.nextDouble() * 100, random.nextDouble() * 100));
+            }
+            scenes[i] = new Object[] {random.nextDouble() * 4 + 0.01, collideables};
+        }
+        return scenes;
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void new_nullPool() {
+        new ParallelCollisionDetector(
+                1, LimitMode.DISTANCE, new CollisionHandlerProviderImpl(), PairMode.ALL_ORDERED,
+                null);
+    }
+
+    @Test(dataProvider = "largeScenes")
+    public void doDetection_sameAsBruteForce(double limit, List<CollideableStub> collideables) {
+        List<String> expected = GridCollisionDetectorTest.record(
+                GridCollisionDetectorTest::bruteForce, limit, collideables);
+
+        List<String> actual = GridCollisionDetectorTest.record(
+                (lim, provider) -> new ParallelCollisionDetector(
+                        lim, LimitMode.DISTANCE, provider, PairMode.ALL_ORDERED, pool),
+                limit, collideables);
+
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test(dataProvider = "largeScenes")
+    public void doDetection_distinctSameAsBruteForce(
+            double limit, List<CollideableStub> collideables) {
+        List<String> expected = GridCollisionDetectorTest.record(
+                (lim, provider) -> new CollisionDetectorImpl(
+                        lim, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED,
+                        DistanceKernels.scalar()),
+                limit, collideables);
+
+        List<String> actual = GridCollisionDetectorTest.record(
+                (lim, provider) -> new ParallelCollisionDetector(
+                        lim, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED, pool),
+                limit, collideables);
+
+        Assert.assertEquals(actual, expected);
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
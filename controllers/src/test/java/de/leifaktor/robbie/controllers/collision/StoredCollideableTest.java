@@ -0,0 +1,152 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.api.controllers.collision.DoublePosition;
+import de.leifaktor.robbie.api.controllers.collision.PositionStore;
+import de.leifaktor.robbie.api.controllers.collision.StoredCollideable;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the detection of StoredCollideables.
+ */
+public class StoredCollideableTest {
+
+    /**
+     * A StoredCollideable, which must not be asked for a DoublePosition.
+     */
+    static class StoredStub implements StoredCollideable {
+
+        /**
+         * The store holding the position.
+         */
+        private final PositionStore store;
+
+        /**
+         * The id of the position.
+         */
+        private final int id;
+
+        /**
+         * Creates a new StoredStub.
+         *
+         * @param store the store to allocate the position in
+         * @param x the initial x coordinate
+         * @param y the initial y coordinate
+         */
+        StoredStub(PositionStore store, double x, double y) {
+            this.store = store;
+            this.id = store.allocate(x, y);
+        }
+
+        @Override
+        public PositionStore getPositionStore() {
+            return store;
+        }
+
+        @Override
+        public int getPositionId() {
+            return id;
+        }
+
+        @Override
+        public DoublePosition getPosition() {
+            throw new AssertionError("The position must be read from the store.");
+        }
+
+    }
+
+    /**
+     * The store of the positions.
+     */
+    private PositionStore store;
+
+    /**
+     * The collisions reported by the detectors.
+     */
+    private List<List<StoredStub>> collisions;
+
+    /**
+     * The provider recording the collisions.
+     */
+    private CollisionHandlerProvider provider;
+
+    /**
+     * Empty constructor.
+     */
+    public StoredCollideableTest() {
+        super();
+    }
+
+    /**
+     * Creates a fresh store and provider.
+     */
+    @BeforeMethod
+    public void initialize() {
+        store = new PositionStore();
+        collisions = new ArrayList<>();
+        provider = new CollisionHandlerProviderImpl();
+        provider.register(StoredStub.class, StoredStub.class,
+                (c1, c2) -> collisions.add(Arrays.asList(c1, c2)));
+    }
+
+    @Test
+    public void doDetection_readsStore() {
+        StoredStub first = new StoredStub(store, 0, 0);
+        StoredStub second = new StoredStub(store, 5, 0);
+        CollisionDetector detector = new CollisionDetectorImpl(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED,
+                DistanceKernels.scalar());
+        detector.doDetection(Arrays.asList(first, second));
+        Assert.assertTrue(collisions.isEmpty());
+
+        store.setPosition(second.getPositionId(), 0.5, 0);
+        detector.doDetection(Arrays.asList(first, second));
+
+        Assert.assertEquals(collisions, Arrays.asList(Arrays.asList(first, second)));
+    }
+
+    @Test
+    public void doDetection_gridReadsStore() {
+        StoredStub first = new StoredStub(store, 0, 0);
+        StoredStub second = new StoredStub(store, 0.5, 0.5);
+        CollisionDetector detector = new GridCollisionDetector(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED);
+
+        detector.doDetection(Arrays.asList(first, second));
+
+        Assert.assertEquals(collisions, Arrays.asList(Arrays.asList(first, second)));
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
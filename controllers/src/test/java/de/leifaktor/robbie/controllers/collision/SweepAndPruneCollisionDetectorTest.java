@@ -0,0 +1,107 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.controllers.collision.IncrementalCollisionDetectorTest.MovingStub;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the SweepAndPruneCollisionDetector.
+ */
+public class SweepAndPruneCollisionDetectorTest {
+
+    /**
+     * Empty constructor.
+     */
+    public SweepAndPruneCollisionDetectorTest() {
+        super();
+    }
+
+    @DataProvider(name = "pairModes")
+    public Object[][] providePairModes() {
+        return new Object[][] {{PairMode.ALL_ORDERED}, {PairMode.DISTINCT_UNORDERED}};
+    }
+
+    /**
+     * Creates a provider adding the collisions to collisions.
+     *
+     * @param collideables the list to look up the indices in
+     * @param collisions the list to add the collisions to
+     * @return a CollisionHandlerProvider
+     */
+    private static CollisionHandlerProvider recordingProvider(
+            List<MovingStub> collideables, List<String> collisions) {
+        CollisionHandlerProvider provider = new CollisionHandlerProviderImpl();
+        provider.register(MovingStub.class, MovingStub.class, (c1, c2) -> collisions.add(
+                collideables.indexOf(c1) + "-" + collideables.indexOf(c2)));
+        return provider;
+    }
+
+    @Test(dataProvider = "pairModes")
+    public void doDetection_samePairsAsBruteForce(PairMode pairMode) {
+        Random random = new Random(0x5a9L);
+        List<MovingStub> collideables = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        CollisionDetector bruteForce = new CollisionDetectorImpl(
+                2, LimitMode.DISTANCE, recordingProvider(collideables, expected), pairMode,
+                DistanceKernels.scalar());
+        CollisionDetector sweep = new SweepAndPruneCollisionDetector(
+                2, LimitMode.DISTANCE, recordingProvider(collideables, actual), pairMode);
+        for (int i = 0; i < 150; i++) {
+            collideables.add(new MovingStub(random.nextDouble() * 100, random.nextDouble() * 5));
+        }
+
+        for (int tick = 0; tick < 30; tick++) {
+            for (MovingStub collideable : collideables) {
+                collideable.moveBy(random.nextGaussian(), random.nextGaussian() / 4);
+            }
+            if (tick % 4 == 0) {
+                collideables.remove(random.nextInt(collideables.size()));
+                collideables.add(random.nextInt(collideables.size()), new MovingStub(
+                        random.nextDouble() * 100, random.nextDouble() * 5));
+            }
+            expected.clear();
+            actual.clear();
+            bruteForce.doDetection(collideables);
+            sweep.doDetection(collideables);
+            Collections.sort(expected);
+            Collections.sort(actual);
+
+            Assert.assertEquals(actual, expected);
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
@@ -0,0 +1,201 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision;
+
+import de.leifaktor.robbie.api.controllers.collision.CollisionDetector;
+import de.leifaktor.robbie.api.controllers.collision.CollisionHandlerProvider;
+import de.leifaktor.robbie.api.controllers.collision.DoublePosition;
+import de.leifaktor.robbie.controllers.collision.IncrementalCollisionDetectorTest.MovingStub;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the SweptCollisionDetector.
+ */
+public class SweptCollisionDetectorTest {
+
+    /**
+     * The collisions reported by the detector.
+     */
+    private List<List<MovingStub>> collisions;
+
+    /**
+     * The detector to test.
+     */
+    private CollisionDetector detector;
+
+    /**
+     * Empty constructor.
+     */
+    public SweptCollisionDetectorTest() {
+        super();
+    }
+
+    /**
+     * Creates a detector recording its collisions.
+     */
+    @BeforeMethod
+    public void initializeDetector() {
+        collisions = new ArrayList<>();
+        CollisionHandlerProvider provider = new CollisionHandlerProviderImpl();
+        provider.register(MovingStub.class, MovingStub.class,
+                (c1, c2) -> collisions.add(Arrays.asList(c1, c2)));
+        detector = new SweptCollisionDetector(
+                1, LimitMode.DISTANCE, provider, PairMode.DISTINCT_UNORDERED);
+    }
+
+    /**
+     * Returns the smallest distance of two straight motions by checking
+     * every pair without a broad phase.
+     *
+     * @param from1 the start of the first motion
+     * @param to1 the end of the first motion
+     * @param from2 the start of the second motion
+     * @param to2 the end of the second motion
+     * @return the smallest distance
+     */
+    private static double closestApproach(DoublePosition from1, DoublePosition to1,
+            DoublePosition from2, DoublePosition to2) {
+        double x = from1.getX() - from2.getX();
+        double y = from1.getY() - from2.getY();
+        double moveX = to1.getX() - to2.getX() - x;
+        double moveY = to1.getY() - to2.getY() - y;
+        double time = 0;
+        if (moveX != 0 || moveY != 0) {
+            time = -(x * moveX + y * moveY) / (moveX * moveX + moveY * moveY);
+            time = Math.max(0, Math.min(1, time));
+        }
+        return Math.hypot(x + time * moveX, y + time * moveY);
+    }
+
+    @Test
+    public void doDetection_samePairsAsBruteForce() {
+        Random random = new Random(0x5eeL);
+        List<MovingStub> collideables = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            collideables.add(new MovingStub(random.nextDouble() * 100, random.nextDouble() * 100));
+        }
+        detector.doDetection(collideables);
+
+        for (int tick = 0; tick < 12; tick++) {
+            //Every third tick has a long motion, which coarsens the grid
+            double speed = tick % 3 == 0 ? 40 : 1;
+            List<DoublePosition> from = new ArrayList<>();
+            for (MovingStub collideable : collideables) {
+                from.add(collideable.getPosition());
+                collideable.moveBy(random.nextGaussian() * speed, random.nextGaussian() * speed);
+            }
+            List<List<MovingStub>> expected = new ArrayList<>();
+            for (int i = 0; i < collideables.size(); i++) {
+                for (int j = i + 1; j < collideables.size(); j++) {
+                    if (closestApproach(from.get(i), collideables.get(i).getPosition(),
+                            from.get(j), collideables.get(j).getPosition()) < 1) {
+                        expected.add(Arrays.asList(collideables.get(i), collideables.get(j)));
+                    }
+                }
+            }
+            collisions.clear();
+
+            detector.doDetection(collideables);
+
+            Assert.assertEquals(collisions, expected);
+        }
+    }
+
+    @Test
+    public void doDetection_crossingCollideablesCollide() {
+        MovingStub left = new MovingStub(0, 0);
+        MovingStub right = new MovingStub(10, 0);
+        List<MovingStub> collideables = Arrays.asList(left, right);
+        detector.doDetection(collideables);
+        Assert.assertTrue(collisions.isEmpty());
+
+        left.moveBy(10, 0);
+        right.moveBy(-10, 0);
+        detector.doDetection(collideables);
+
+        Assert.assertEquals(collisions, Arrays.asList(Arrays.asList(left, right)));
+    }
+
+    @Test
+    public void doDetection_passingCollideablesDoNotCollide() {
+        MovingStub left = new MovingStub(0, 0);
+        MovingStub right = new MovingStub(10, 2);
+        List<MovingStub> collideables = Arrays.asList(left, right);
+        detector.doDetection(collideables);
+
+        left.moveBy(10, 0);
+        right.moveBy(-10, 0);
+        detector.doDetection(collideables);
+
+        Assert.assertTrue(collisions.isEmpty());
+    }
+
+    @Test
+    public void doDetection_closestApproachAtEnd() {
+        MovingStub moving = new MovingStub(0, 0);
+        MovingStub resting = new MovingStub(10, 0);
+        List<MovingStub> collideables = Arrays.asList(moving, resting);
+        detector.doDetection(collideables);
+
+        moving.moveBy(9.5, 0);
+        detector.doDetection(collideables);
+
+        Assert.assertEquals(collisions, Arrays.asList(Arrays.asList(moving, resting)));
+    }
+
+    @Test
+    public void doDetection_newCollideablesDidNotMove() {
+        MovingStub first = new MovingStub(0, 0);
+        detector.doDetection(Arrays.asList(first));
+        first.moveBy(10, 0);
+        MovingStub second = new MovingStub(5, 0);
+
+        detector.doDetection(Arrays.asList(first, second));
+
+        Assert.assertEquals(collisions, Arrays.asList(Arrays.asList(first, second)));
+    }
+
+    @Test
+    public void doDetection_forgottenCollideablesStartAgain() {
+        MovingStub first = new MovingStub(0, 0);
+        MovingStub second = new MovingStub(5, 0);
+        detector.doDetection(Arrays.asList(first, second));
+        detector.doDetection(Arrays.asList(second));
+        first.moveBy(10, 0);
+
+        detector.doDetection(Arrays.asList(first, second));
+
+        Assert.assertTrue(collisions.isEmpty());
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
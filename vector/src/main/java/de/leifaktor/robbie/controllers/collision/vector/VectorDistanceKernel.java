@@ -0,0 +1,75 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision.vector;
+
+import de.leifaktor.robbie.controllers.collision.DistanceKernel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A DistanceKernel computing several distances at once in the lanes of a
+ * {@link DoubleVector}.
+ *
+ * <p>The remainder of a block, which does not fill all lanes, is computed
+ * one distance after the other. Since the lanes use the same operations
+ * in the same order as the scalar computation, the results are identical.
+ */
+public final class VectorDistanceKernel implements DistanceKernel {
+
+    /**
+     * The preferred shape of the vectors on this platform.
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Creates a new VectorDistanceKernel.
+     *
+     * <p>It is public for being loaded reflectively.
+     */
+    public VectorDistanceKernel() {
+        super();
+    }
+
+    @Override
+    public void distances(double x, double y, double[] xs, double[] ys, int from, int to,
+                          double[] distances) {
+        DoubleVector xVector = DoubleVector.broadcast(SPECIES, x);
+        DoubleVector yVector = DoubleVector.broadcast(SPECIES, y);
+        int j = from;
+        int upperBound = from + SPECIES.loopBound(to - from);
+        for (; j < upperBound; j += SPECIES.length()) {
+            DoubleVector xDiff = xVector.sub(DoubleVector.fromArray(SPECIES, xs, j));
+            DoubleVector yDiff = yVector.sub(DoubleVector.fromArray(SPECIES, ys, j));
+            xDiff.mul(xDiff).add(yDiff.mul(yDiff)).intoArray(distances, j - from);
+        }
+        for (; j < to; j++) {
+            double xDiff = x - xs[j];
+            double yDiff = y - ys[j];
+            distances[j - from] = xDiff * xDiff + yDiff * yDiff;
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */
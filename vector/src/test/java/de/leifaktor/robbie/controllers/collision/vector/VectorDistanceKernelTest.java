@@ -0,0 +1,81 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This file is part of Robbie.
+ *
+ * Robbie is a 2d-adventure game.
+ * Copyright (C) 2015 Matthias Johannes Reimchen
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.leifaktor.robbie.controllers.collision.vector;
+
+import de.leifaktor.robbie.controllers.collision.DistanceKernel;
+import de.leifaktor.robbie.controllers.collision.DistanceKernels;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+/**
+ * Tests the VectorDistanceKernel.
+ */
+public class VectorDistanceKernelTest {
+
+    /**
+     * Empty constructor.
+     */
+    public VectorDistanceKernelTest() {
+        super();
+    }
+
+    @DataProvider(name = "blocks")
+    public Object[][] blocks() {
+        return new Object[][]{
+                {0, 0}, {0, 1}, {0, 7}, {3, 8}, {1, 64}, {5, 1000}
+        };
+    }
+
+    @Test
+    public void vectorized_loadsVectorDistanceKernel() {
+        Assert.assertTrue(DistanceKernels.vectorized() instanceof VectorDistanceKernel);
+    }
+
+    @Test(dataProvider = "blocks")
+    public void distances_sameAsScalar(int from, int to) {
+        Random random = new Random(from * 31L + to);
+        double[] xs = new double[to];
+        double[] ys = new double[to];
+        for (int j = 0; j < to; j++) {
+            xs[j] = random.nextGaussian() * 100;
+            ys[j] = random.nextGaussian() * 100;
+        }
+        double[] expected = new double[to - from];
+        double[] actual = new double[to - from];
+        DistanceKernel kernel = new VectorDistanceKernel();
+
+        DistanceKernels.scalar().distances(1.5, -2.5, xs, ys, from, to, expected);
+        kernel.distances(1.5, -2.5, xs, ys, from, to, actual);
+
+        for (int j = 0; j < expected.length; j++) {
+            Assert.assertEquals(actual[j], expected[j]);
+        }
+    }
+
+}
+
+/* vim:set shiftwidth=4 softtabstop=4 expandtab: */